@@ -0,0 +1,60 @@
+package com.access.control.service.services;
+
+import com.access.control.service.builders.PermissionOptions;
+import com.access.control.service.enums.Permission;
+import com.access.control.service.enums.Resource;
+import com.access.control.service.enums.Subject;
+import com.authzed.api.v1.CheckPermissionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CheckPermissionRequest construction as done for every checkPermission call.
+ * Run with -prof gc to see the bytes allocated per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckRequestBuildingBenchmark {
+
+  private PermissionOptions options;
+  private PermissionOptions caveatedOptions;
+
+  @Setup
+  public void setUp() {
+    options = PermissionOptions.builder()
+      .resource(Resource.FILE).resourceId("report-2024")
+      .subject(Subject.TENANT).subjectId("tenant-42")
+      .permission(Permission.READ)
+      .build();
+    caveatedOptions = PermissionOptions.builder()
+      .resource(Resource.FILE).resourceId("report-2024")
+      .subject(Subject.TENANT).subjectId("tenant-42")
+      .permission(Permission.READ)
+      .password("secret")
+      .build();
+  }
+
+  @Benchmark
+  public CheckPermissionRequest checkRequest() {
+    return AuthorizationService.checkRequest(options);
+  }
+
+  @Benchmark
+  public CheckPermissionRequest caveatedCheckRequest() {
+    return AuthorizationService.checkRequest(caveatedOptions);
+  }
+}
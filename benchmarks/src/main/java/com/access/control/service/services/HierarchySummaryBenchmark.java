@@ -0,0 +1,59 @@
+package com.access.control.service.services;
+
+import com.access.control.service.dto.HierarchyRelation;
+import com.access.control.service.dto.HierarchySummary;
+import com.access.control.service.enums.AccessType;
+import com.access.control.service.enums.Relation;
+import com.access.control.service.enums.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HierarchyService.calculateSummary over a mix of direct and indirect parents and children
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchySummaryBenchmark {
+
+  @Param({"100", "10000"})
+  private int relationCount;
+
+  private List<HierarchyRelation> relations;
+
+  @Setup
+  public void setUp() {
+    relations = new ArrayList<>(relationCount);
+    for (int i = 0; i < relationCount; i++) {
+      int level = 1 + i % 6;
+      relations.add(HierarchyRelation.builder()
+        .accessType(level == 1 ? AccessType.DIRECT : AccessType.INDIRECT)
+        .resource(i % 3 == 0 ? Resource.FOLDER : Resource.FILE)
+        .resourceId("resource-" + i)
+        .level(level)
+        .relation(i % 10 == 0 ? Relation.PARENT : Relation.CHILD)
+        .build());
+    }
+  }
+
+  @Benchmark
+  public HierarchySummary calculateSummary() {
+    return HierarchyService.calculateSummary(relations);
+  }
+}
@@ -0,0 +1,125 @@
+package com.access.control.service.services;
+
+import com.access.control.service.cache.AncestorCache;
+import com.access.control.service.cache.PermissionDecisionCache;
+import com.access.control.service.cache.SubjectListCache;
+import com.access.control.service.dto.HierarchyResponse;
+import com.access.control.service.enums.Resource;
+import com.access.control.service.interceptors.CircuitBreakerInterceptor;
+import com.access.control.service.mirror.RelationshipGraphMirror;
+import com.authzed.api.v1.PermissionsServiceGrpc;
+import com.authzed.api.v1.SchemaServiceGrpc;
+import com.authzed.api.v1.WatchServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.access.control.service.utils.constants.TENANT_ID;
+
+/**
+ * Full getCompleteHierarchy calls against an in-process SpiceDB fake, down from the root folder
+ * and up from a leaf file of a tree with the given depth and fan-out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HierarchyTraversalBenchmark {
+
+  @Param({"3", "5"})
+  private int depth;
+
+  @Param({"4", "8"})
+  private int fanOut;
+
+  @Param({"0", "200"})
+  private int latencyMicros;
+
+  @Param({"32"})
+  private int maxConcurrency;
+
+  private Server server;
+  private ManagedChannel channel;
+  private ExecutorService executor;
+  private HierarchyService hierarchyService;
+  private MockHttpServletRequest request;
+  private String leafId;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    TreePermissionsService tree =
+      new TreePermissionsService(depth, fanOut, TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+    leafId = tree.leafId();
+
+    String name = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(name).addService(tree).build().start();
+    channel = InProcessChannelBuilder.forName(name).build();
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    PermissionsServiceGrpc.PermissionsServiceBlockingStub permissionsClient =
+      PermissionsServiceGrpc.newBlockingStub(channel);
+    AuthorizationService authorizationService = new AuthorizationService(
+      permissionsClient,
+      PermissionsServiceGrpc.newFutureStub(channel),
+      PermissionsServiceGrpc.newStub(channel),
+      new PermissionDecisionCache(false, 1, 1, 0),
+      new AncestorCache(false, 1, 1),
+      new SubjectListCache(false, 1, 1, 1),
+      executor,
+      new RelationshipWriteBatcher(permissionsClient, executor, false, 1000, 5),
+      new CallCoalescer(false, new SimpleMeterRegistry()),
+      new CircuitBreakerInterceptor(false, 1, 1, 100, 0, new SimpleMeterRegistry()));
+    ReflectionTestUtils.setField(authorizationService, "bulkCheckChunkSize", 100);
+
+    RelationshipGraphMirror graphMirror = new RelationshipGraphMirror(permissionsClient,
+      SchemaServiceGrpc.newBlockingStub(channel), WatchServiceGrpc.newStub(channel), false, 1000, 1000);
+    hierarchyService = new HierarchyService(authorizationService, executor, graphMirror,
+      new AncestorCache(false, 1, 1));
+    ReflectionTestUtils.setField(hierarchyService, "maxConcurrency", maxConcurrency);
+    ReflectionTestUtils.setField(hierarchyService, "maxNodesLimit", Integer.MAX_VALUE);
+
+    request = new MockHttpServletRequest();
+    request.addHeader(TENANT_ID, "benchmark");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public HierarchyResponse subtreeFromRoot() {
+    return hierarchyService.getCompleteHierarchy(Resource.FOLDER, TreePermissionsService.ROOT_ID, null, null, request);
+  }
+
+  @Benchmark
+  public HierarchyResponse ancestorsFromLeaf() {
+    return hierarchyService.getCompleteHierarchy(Resource.FILE, leafId, null, null, request);
+  }
+}
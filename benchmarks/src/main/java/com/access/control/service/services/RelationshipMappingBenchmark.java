@@ -0,0 +1,65 @@
+package com.access.control.service.services;
+
+import com.access.control.service.dto.RelationshipInfo;
+import com.authzed.api.v1.ObjectReference;
+import com.authzed.api.v1.Relationship;
+import com.authzed.api.v1.SubjectReference;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of ReadRelationships rows to RelationshipInfo, per row.
+ * Run with -prof gc to see the bytes allocated per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelationshipMappingBenchmark {
+
+  private static final int ROWS = 1000;
+
+  private List<Relationship> relationships;
+
+  @Setup
+  public void setUp() throws InvalidProtocolBufferException {
+    relationships = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      Relationship relationship = Relationship.newBuilder()
+        .setResource(ObjectReference.newBuilder().setObjectType(i % 2 == 0 ? "file" : "folder")
+          .setObjectId("resource-" + i))
+        .setRelation("parent")
+        .setSubject(SubjectReference.newBuilder()
+          .setObject(ObjectReference.newBuilder().setObjectType("folder").setObjectId("folder-" + i / 10)))
+        .build();
+      // Parse from bytes so the rows look like the ones read off the wire
+      relationships.add(Relationship.parseFrom(relationship.toByteArray()));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void toRelationshipInfo(Blackhole blackhole) {
+    for (Relationship relationship : relationships) {
+      RelationshipInfo info = AuthorizationService.toRelationshipInfo(relationship);
+      blackhole.consume(info);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.access.control.service.services;
+
+import com.access.control.service.enums.Relation;
+import com.access.control.service.enums.Resource;
+import com.authzed.api.v1.CheckBulkPermissionsPair;
+import com.authzed.api.v1.CheckBulkPermissionsRequest;
+import com.authzed.api.v1.CheckBulkPermissionsRequestItem;
+import com.authzed.api.v1.CheckBulkPermissionsResponse;
+import com.authzed.api.v1.CheckBulkPermissionsResponseItem;
+import com.authzed.api.v1.CheckPermissionRequest;
+import com.authzed.api.v1.CheckPermissionResponse;
+import com.authzed.api.v1.ObjectReference;
+import com.authzed.api.v1.PermissionsServiceGrpc;
+import com.authzed.api.v1.ReadRelationshipsRequest;
+import com.authzed.api.v1.ReadRelationshipsResponse;
+import com.authzed.api.v1.Relationship;
+import com.authzed.api.v1.RelationshipFilter;
+import com.authzed.api.v1.SubjectReference;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PermissionsService fake serving a synthetic tree: a root folder with fanOut children per
+ * folder down to depth levels, the last level being files. Every check is allowed, and each
+ * call waits latencyNanos before answering to stand in for the network and SpiceDB.
+ */
+public class TreePermissionsService extends PermissionsServiceGrpc.PermissionsServiceImplBase {
+
+  public static final String ROOT_ID = "root";
+
+  private static final String FOLDER = Resource.FOLDER.getWireName();
+  private static final String PARENT = Relation.PARENT.getWireName();
+
+  private final Map<String, List<Relationship>> outgoing = new HashMap<>();
+  private final Map<String, List<Relationship>> incoming = new HashMap<>();
+  private final long latencyNanos;
+  private String leafId;
+
+  public TreePermissionsService(int depth, int fanOut, long latencyNanos) {
+    this.latencyNanos = latencyNanos;
+    addChildren(ROOT_ID, 1, depth, fanOut);
+  }
+
+  /**
+   * One of the files on the deepest level
+   */
+  public String leafId() {
+    return leafId;
+  }
+
+  @Override
+  public void readRelationships(ReadRelationshipsRequest request,
+                                StreamObserver<ReadRelationshipsResponse> responseObserver) {
+    simulateLatency();
+    RelationshipFilter filter = request.getRelationshipFilter();
+    String key = filter.hasOptionalSubjectFilter()
+      ? key(filter.getOptionalSubjectFilter().getSubjectType(), filter.getOptionalSubjectFilter().getOptionalSubjectId())
+      : key(filter.getResourceType(), filter.getOptionalResourceId());
+    Map<String, List<Relationship>> index = filter.hasOptionalSubjectFilter() ? incoming : outgoing;
+
+    for (Relationship relationship : index.getOrDefault(key, List.of())) {
+      responseObserver.onNext(ReadRelationshipsResponse.newBuilder().setRelationship(relationship).build());
+    }
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void checkPermission(CheckPermissionRequest request,
+                              StreamObserver<CheckPermissionResponse> responseObserver) {
+    simulateLatency();
+    responseObserver.onNext(CheckPermissionResponse.newBuilder()
+      .setPermissionship(CheckPermissionResponse.Permissionship.PERMISSIONSHIP_HAS_PERMISSION)
+      .build());
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void checkBulkPermissions(CheckBulkPermissionsRequest request,
+                                   StreamObserver<CheckBulkPermissionsResponse> responseObserver) {
+    simulateLatency();
+    CheckBulkPermissionsResponse.Builder response = CheckBulkPermissionsResponse.newBuilder();
+    for (CheckBulkPermissionsRequestItem item : request.getItemsList()) {
+      response.addPairs(CheckBulkPermissionsPair.newBuilder()
+        .setRequest(item)
+        .setItem(CheckBulkPermissionsResponseItem.newBuilder()
+          .setPermissionship(CheckPermissionResponse.Permissionship.PERMISSIONSHIP_HAS_PERMISSION)));
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  private void addChildren(String parentId, int level, int depth, int fanOut) {
+    String type = level == depth ? Resource.FILE.getWireName() : FOLDER;
+    for (int i = 0; i < fanOut; i++) {
+      String childId = parentId + "." + i;
+      Relationship relationship = Relationship.newBuilder()
+        .setResource(ObjectReference.newBuilder().setObjectType(type).setObjectId(childId))
+        .setRelation(PARENT)
+        .setSubject(SubjectReference.newBuilder()
+          .setObject(ObjectReference.newBuilder().setObjectType(FOLDER).setObjectId(parentId)))
+        .build();
+      outgoing.computeIfAbsent(key(type, childId), k -> new ArrayList<>()).add(relationship);
+      incoming.computeIfAbsent(key(FOLDER, parentId), k -> new ArrayList<>()).add(relationship);
+
+      if (level < depth) {
+        addChildren(childId, level + 1, depth, fanOut);
+      } else {
+        leafId = childId;
+      }
+    }
+  }
+
+  private void simulateLatency() {
+    if (latencyNanos > 0) {
+      LockSupport.parkNanos(latencyNanos);
+    }
+  }
+
+  private static String key(String type, String id) {
+    return type + ":" + id;
+  }
+}
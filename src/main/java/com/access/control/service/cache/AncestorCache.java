@@ -0,0 +1,160 @@
+package com.access.control.service.cache;
+
+import com.access.control.service.dto.CacheStats;
+import com.access.control.service.dto.RelationshipInfo;
+import com.access.control.service.enums.Resource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the PARENT edges of a resource and all of its ancestors, as found by one upward
+ * hierarchy walk. Invalidating a resource records the generation at which its parents changed;
+ * any cached path that passes through it and was resolved before then is treated as a miss, so
+ * changing a folder's parent also drops the paths of everything below it. The markers are
+ * bounded like the paths; evicting one for size drops every path resolved before it.
+ */
+@Slf4j
+@Component
+public class AncestorCache implements MeterBinder {
+
+  public static final String NAME = "ancestors";
+
+  private final boolean enabled;
+  private final Cache<String, Path> paths;
+  // Kept for as long as any path resolved before the invalidation can live
+  private final Cache<String, Long> invalidatedAt;
+  private final AtomicLong generation = new AtomicLong();
+  // Paths resolved before a marker that was evicted for size can no longer be checked
+  private final AtomicLong evictedAt = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public AncestorCache(@Value("${acl.hierarchy.ancestor-cache.enabled:true}") boolean enabled,
+                       @Value("${acl.hierarchy.ancestor-cache.max-size:100000}") long maxSize,
+                       @Value("${acl.hierarchy.ancestor-cache.ttl-seconds:60}") long ttlSeconds) {
+    this.enabled = enabled;
+    this.paths = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+      .recordStats()
+      .build();
+    this.invalidatedAt = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+      .<String, Long>evictionListener((key, changedAt, cause) -> {
+        if (cause == RemovalCause.SIZE) {
+          evictedAt.accumulateAndGet(changedAt, Math::max);
+        }
+      })
+      .build();
+    log.info("Ancestor cache enabled={}, maxSize={}, ttl={}s", enabled, maxSize, ttlSeconds);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the PARENT edges of the resource and its ancestors keyed by node, or null when
+   * absent or when a resource on the path changed parents after it was resolved
+   */
+  public Map<String, List<RelationshipInfo>> get(Resource resource, String resourceId) {
+    Path path = paths.getIfPresent(key(resource, resourceId));
+    if (path == null || !isCurrent(path)) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return path.edges();
+  }
+
+  /**
+   * Generation to capture before the walk whose result will be cached
+   */
+  public long generation() {
+    return generation.get();
+  }
+
+  public void put(Resource resource, String resourceId, Map<String, List<RelationshipInfo>> edges,
+                  long resolvedAtGeneration) {
+    Path path = new Path(Map.copyOf(edges), resolvedAtGeneration);
+    // A parent change that landed during the walk makes the path unsafe to keep
+    if (isCurrent(path)) {
+      paths.put(key(resource, resourceId), path);
+    }
+  }
+
+  /**
+   * Called when the resource's PARENT edges are written or the resource is deleted
+   */
+  public void invalidate(Resource resource, String resourceId) {
+    String key = key(resource, resourceId);
+    invalidatedAt.put(key, generation.incrementAndGet());
+    paths.invalidate(key);
+  }
+
+  public CacheStats stats() {
+    return CacheStats.builder()
+      .name(NAME)
+      .enabled(enabled)
+      .size(paths.estimatedSize())
+      .hits(hits.sum())
+      .misses(misses.sum())
+      .evictions(paths.stats().evictionCount())
+      .build();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("cache.size", paths, Cache::estimatedSize)
+      .tag("cache", NAME)
+      .register(registry);
+    FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+      .tags("cache", NAME, "result", "hit")
+      .register(registry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+      .tags("cache", NAME, "result", "miss")
+      .register(registry);
+    FunctionCounter.builder("cache.evictions", paths, cache -> cache.stats().evictionCount())
+      .tag("cache", NAME)
+      .register(registry);
+  }
+
+  private boolean isCurrent(Path path) {
+    if (evictedAt.get() > path.generation()) {
+      return false;
+    }
+    for (String node : path.edges().keySet()) {
+      Long changedAt = invalidatedAt.getIfPresent(node);
+      if (changedAt != null && changedAt > path.generation()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same node key as HierarchyService uses for the walk
+   */
+  private static String key(Resource resource, String resourceId) {
+    return resource + ":" + resourceId;
+  }
+
+  private record Path(Map<String, List<RelationshipInfo>> edges, long generation) {
+  }
+}
@@ -0,0 +1,148 @@
+package com.access.control.service.cache;
+
+import com.access.control.service.builders.PermissionOptions;
+import com.access.control.service.dto.CacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, TTL-evicting cache of CheckPermission decisions keyed on PermissionOptions.
+ * Every write made through AuthorizationService bumps the generation, so decisions
+ * resolved before that write are treated as misses from then on. The last known decisions
+ * are also kept for spicedb.cache.stale-ttl-seconds, to answer from while SpiceDB is unreachable;
+ * a grant from before the latest write is never served, since that write may have revoked it.
+ */
+@Slf4j
+@Component
+public class PermissionDecisionCache implements MeterBinder {
+
+  public static final String NAME = "decisions";
+
+  private final boolean enabled;
+  private final Cache<PermissionOptions, Decision> decisions;
+  private final Cache<PermissionOptions, Decision> lastKnown;
+  private final AtomicLong generation = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+
+  public PermissionDecisionCache(@Value("${spicedb.cache.enabled:true}") boolean enabled,
+                                 @Value("${spicedb.cache.max-size:100000}") long maxSize,
+                                 @Value("${spicedb.cache.ttl-seconds:5}") long ttlSeconds,
+                                 @Value("${spicedb.cache.stale-ttl-seconds:0}") long staleTtlSeconds) {
+    this.enabled = enabled;
+    this.decisions = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+      .recordStats()
+      .build();
+    this.lastKnown = Caffeine.newBuilder()
+      .maximumSize(staleTtlSeconds > 0 ? maxSize : 0)
+      .expireAfterWrite(Duration.ofSeconds(staleTtlSeconds))
+      .build();
+    log.info("Permission decision cache enabled={}, maxSize={}, ttl={}s, staleTtl={}s",
+      enabled, maxSize, ttlSeconds, staleTtlSeconds);
+  }
+
+  /**
+   * Caveated checks depend on the supplied password and are never cached
+   */
+  public boolean isCacheable(PermissionOptions options) {
+    return enabled && options.getPassword() == null;
+  }
+
+  /**
+   * Returns the cached decision, or null when absent or resolved before the latest write
+   */
+  public Boolean get(PermissionOptions options) {
+    Decision decision = decisions.getIfPresent(options);
+    if (decision == null || decision.generation() != generation.get()) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return decision.allowed();
+  }
+
+  /**
+   * Returns the last decision resolved for the options, or null when there is none. A denial
+   * may predate later writes, a grant may not, so the fallback never opens access.
+   */
+  public Boolean getStale(PermissionOptions options) {
+    Decision decision = lastKnown.getIfPresent(options);
+    if (decision == null || decision.allowed() && decision.generation() != generation.get()) {
+      return null;
+    }
+    staleHits.increment();
+    return decision.allowed();
+  }
+
+  /**
+   * Generation to capture before issuing the remote check that will be cached
+   */
+  public long generation() {
+    return generation.get();
+  }
+
+  public void put(PermissionOptions options, boolean allowed, long resolvedAtGeneration) {
+    // A write that landed while the check was in flight makes the answer unsafe to keep
+    if (resolvedAtGeneration == generation.get()) {
+      Decision decision = new Decision(allowed, resolvedAtGeneration);
+      decisions.put(options, decision);
+      lastKnown.put(options, decision);
+    }
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+  }
+
+  public CacheStats stats() {
+    return CacheStats.builder()
+      .name(NAME)
+      .enabled(enabled)
+      .size(decisions.estimatedSize())
+      .hits(hits.sum())
+      .misses(misses.sum())
+      .evictions(decisions.stats().evictionCount())
+      .build();
+  }
+
+  /**
+   * Publishes the same counters as stats() under Micrometer's cache.* names. Hits and misses
+   * come from this class rather than Caffeine, since stale-generation entries count as misses.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("cache.size", decisions, Cache::estimatedSize)
+      .tag("cache", NAME)
+      .register(registry);
+    FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+      .tags("cache", NAME, "result", "hit")
+      .register(registry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+      .tags("cache", NAME, "result", "miss")
+      .register(registry);
+    FunctionCounter.builder("cache.gets", staleHits, LongAdder::sum)
+      .tags("cache", NAME, "result", "stale")
+      .register(registry);
+    FunctionCounter.builder("cache.evictions", decisions, cache -> cache.stats().evictionCount())
+      .tag("cache", NAME)
+      .register(registry);
+  }
+
+  private record Decision(boolean allowed, long generation) {
+  }
+}
@@ -0,0 +1,132 @@
+package com.access.control.service.cache;
+
+import com.access.control.service.dto.CacheStats;
+import com.access.control.service.dto.ResourceSubject;
+import com.access.control.service.enums.Permission;
+import com.access.control.service.enums.Resource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the complete LookupSubjects result of a resource and permission. A grant, a group
+ * change or a move can change who reaches any resource below it, so, like the decision cache,
+ * every write made through AuthorizationService bumps the generation and turns all lists
+ * resolved before it into misses. The cache is bounded by the total number of subjects held,
+ * and lists longer than maxListSize are streamed without being cached.
+ */
+@Slf4j
+@Component
+public class SubjectListCache implements MeterBinder {
+
+  public static final String NAME = "subjects";
+
+  private final boolean enabled;
+  private final int maxListSize;
+  private final Cache<String, Subjects> subjects;
+  private final AtomicLong generation = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public SubjectListCache(@Value("${spicedb.subject-cache.enabled:true}") boolean enabled,
+                          @Value("${spicedb.subject-cache.max-subjects:1000000}") long maxSubjects,
+                          @Value("${spicedb.subject-cache.max-list-size:10000}") int maxListSize,
+                          @Value("${spicedb.subject-cache.ttl-seconds:30}") long ttlSeconds) {
+    this.enabled = enabled;
+    this.maxListSize = maxListSize;
+    this.subjects = Caffeine.newBuilder()
+      .maximumWeight(maxSubjects)
+      .<String, Subjects>weigher((key, list) -> list.subjects().size() + 1)
+      .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+      .recordStats()
+      .build();
+    log.info("Subject list cache enabled={}, maxSubjects={}, maxListSize={}, ttl={}s",
+      enabled, maxSubjects, maxListSize, ttlSeconds);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getMaxListSize() {
+    return maxListSize;
+  }
+
+  /**
+   * Returns the cached subjects, or null when absent or resolved before the latest write
+   */
+  public List<ResourceSubject> get(Resource resource, String resourceId, Permission permission) {
+    Subjects list = subjects.getIfPresent(key(resource, resourceId, permission));
+    if (list == null || list.generation() != generation.get()) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return list.subjects();
+  }
+
+  /**
+   * Generation to capture before issuing the lookup whose result will be cached
+   */
+  public long generation() {
+    return generation.get();
+  }
+
+  public void put(Resource resource, String resourceId, Permission permission, List<ResourceSubject> list,
+                  long resolvedAtGeneration) {
+    // A write that landed while the lookup was in flight makes the list unsafe to keep
+    if (list.size() <= maxListSize && resolvedAtGeneration == generation.get()) {
+      subjects.put(key(resource, resourceId, permission), new Subjects(List.copyOf(list), resolvedAtGeneration));
+    }
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+  }
+
+  public CacheStats stats() {
+    return CacheStats.builder()
+      .name(NAME)
+      .enabled(enabled)
+      .size(subjects.estimatedSize())
+      .hits(hits.sum())
+      .misses(misses.sum())
+      .evictions(subjects.stats().evictionCount())
+      .build();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("cache.size", subjects, Cache::estimatedSize)
+      .tag("cache", NAME)
+      .register(registry);
+    FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+      .tags("cache", NAME, "result", "hit")
+      .register(registry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+      .tags("cache", NAME, "result", "miss")
+      .register(registry);
+    FunctionCounter.builder("cache.evictions", subjects, cache -> cache.stats().evictionCount())
+      .tag("cache", NAME)
+      .register(registry);
+  }
+
+  private static String key(Resource resource, String resourceId, Permission permission) {
+    return resource + ":" + resourceId + "#" + permission;
+  }
+
+  private record Subjects(List<ResourceSubject> subjects, long generation) {
+  }
+}
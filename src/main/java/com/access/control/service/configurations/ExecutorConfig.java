@@ -0,0 +1,21 @@
+package com.access.control.service.configurations;
+
+import com.access.control.service.context.CallContextExecutorService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+  /**
+   * Executor for fanning SpiceDB calls out in parallel, one virtual thread per call. Tasks run
+   * with the submitting request's CallContext so their calls count against its budget.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService spicedbExecutor() {
+    return new CallContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+  }
+}
@@ -1,13 +1,26 @@
 package com.access.control.service.configurations;
 
+import com.access.control.service.interceptors.CallBudgetInterceptor;
+import com.access.control.service.interceptors.CircuitBreakerInterceptor;
+import com.access.control.service.interceptors.DeadlineInterceptor;
+import com.access.control.service.interceptors.GrpcClientMetricsInterceptor;
+import com.access.control.service.standin.SpiceDBStandIn;
 import com.authzed.api.v1.PermissionsServiceGrpc;
 import com.authzed.api.v1.SchemaServiceGrpc;
+import com.authzed.api.v1.WatchServiceGrpc;
 import com.authzed.grpcutil.BearerToken;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.inprocess.InProcessChannelBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 @Configuration
 public class SpiceDBConfig {
@@ -21,12 +34,79 @@ public class SpiceDBConfig {
   @Value("${spicedb.token}")
   private String spicedbToken;
 
+  @Value("${acl.virtual-threads.enabled:false}")
+  private boolean virtualThreads;
+
+  @Value("${spicedb.hedging.enabled:false}")
+  private boolean hedging;
+
+  @Value("${spicedb.hedging.max-attempts:2}")
+  private int hedgingMaxAttempts;
+
+  @Value("${spicedb.hedging.delay-ms:50}")
+  private long hedgingDelayMillis;
+
   @Bean
-  public ManagedChannel spicedbChannel() {
-    return ManagedChannelBuilder
+  @Profile("!" + SpiceDBStandIn.PROFILE)
+  public ManagedChannel spicedbChannel(GrpcClientMetricsInterceptor metricsInterceptor,
+                                       CallBudgetInterceptor callBudgetInterceptor,
+                                       CircuitBreakerInterceptor circuitBreakerInterceptor,
+                                       DeadlineInterceptor deadlineInterceptor) {
+    return configure(ManagedChannelBuilder
       .forAddress(spicedbHost, spicedbPort)
-      .usePlaintext()
-      .build();
+      .usePlaintext(), metricsInterceptor, callBudgetInterceptor, circuitBreakerInterceptor, deadlineInterceptor);
+  }
+
+  @Bean
+  @Profile(SpiceDBStandIn.PROFILE)
+  public ManagedChannel spicedbStandInChannel(SpiceDBStandIn standIn,
+                                              GrpcClientMetricsInterceptor metricsInterceptor,
+                                              CallBudgetInterceptor callBudgetInterceptor,
+                                              CircuitBreakerInterceptor circuitBreakerInterceptor,
+                                              DeadlineInterceptor deadlineInterceptor) {
+    return configure(InProcessChannelBuilder.forName(standIn.getName()), metricsInterceptor,
+      callBudgetInterceptor, circuitBreakerInterceptor, deadlineInterceptor);
+  }
+
+  private ManagedChannel configure(ManagedChannelBuilder<?> builder,
+                                   GrpcClientMetricsInterceptor metricsInterceptor,
+                                   CallBudgetInterceptor callBudgetInterceptor,
+                                   CircuitBreakerInterceptor circuitBreakerInterceptor,
+                                   DeadlineInterceptor deadlineInterceptor) {
+    // Interceptors run last to first: the deadline is set, the breaker and the budget may reject
+    // the call, and only calls that were actually made are recorded. Hedged attempts are made
+    // below all of them, so they see one call per request.
+    builder.intercept(metricsInterceptor, callBudgetInterceptor, circuitBreakerInterceptor, deadlineInterceptor);
+
+    if (hedging) {
+      builder.defaultServiceConfig(hedgingServiceConfig()).enableRetry();
+    }
+
+    // Run call callbacks on virtual threads rather than gRPC's default cached pool
+    if (virtualThreads) {
+      builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Hedges the idempotent reads: when no response has arrived after spicedb.hedging.delay-ms,
+   * set to about the p95 latency of these methods, another attempt is sent and the first
+   * answer wins
+   */
+  private Map<String, ?> hedgingServiceConfig() {
+    List<Map<String, String>> methods = Stream.of(
+        PermissionsServiceGrpc.getCheckPermissionMethod(),
+        PermissionsServiceGrpc.getReadRelationshipsMethod(),
+        PermissionsServiceGrpc.getLookupSubjectsMethod())
+      .map(method -> Map.of("service", method.getServiceName(), "method", method.getBareMethodName()))
+      .toList();
+    return Map.of("methodConfig", List.of(Map.of(
+      "name", methods,
+      "hedgingPolicy", Map.of(
+        "maxAttempts", (double) hedgingMaxAttempts,
+        "hedgingDelay", hedgingDelayMillis / 1000.0 + "s",
+        "nonFatalStatusCodes", List.of("UNAVAILABLE")))));
   }
 
   @Bean
@@ -35,9 +115,27 @@ public class SpiceDBConfig {
       .withCallCredentials(new BearerToken(spicedbToken));
   }
 
+  @Bean
+  public PermissionsServiceGrpc.PermissionsServiceFutureStub permissionsFutureClient(ManagedChannel channel) {
+    return PermissionsServiceGrpc.newFutureStub(channel)
+      .withCallCredentials(new BearerToken(spicedbToken));
+  }
+
+  @Bean
+  public PermissionsServiceGrpc.PermissionsServiceStub permissionsAsyncClient(ManagedChannel channel) {
+    return PermissionsServiceGrpc.newStub(channel)
+      .withCallCredentials(new BearerToken(spicedbToken));
+  }
+
   @Bean
   public SchemaServiceGrpc.SchemaServiceBlockingStub schemaClient(ManagedChannel channel) {
     return SchemaServiceGrpc.newBlockingStub(channel)
       .withCallCredentials(new BearerToken(spicedbToken));
   }
-}
\ No newline at end of file
+
+  @Bean
+  public WatchServiceGrpc.WatchServiceStub watchClient(ManagedChannel channel) {
+    return WatchServiceGrpc.newStub(channel)
+      .withCallCredentials(new BearerToken(spicedbToken));
+  }
+}
@@ -0,0 +1,67 @@
+package com.access.control.service.context;
+
+import com.access.control.service.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SpiceDB calls made on behalf of one HTTP request: how many, their summed latency and the
+ * rows streamed back. A non-positive maxCalls means no budget.
+ */
+public class CallBudget {
+
+  private final int maxCalls;
+  private final boolean enforce;
+
+  private final AtomicInteger calls = new AtomicInteger();
+  private final LongAdder latencyNanos = new LongAdder();
+  private final LongAdder rows = new LongAdder();
+
+  public CallBudget(int maxCalls, boolean enforce) {
+    this.maxCalls = maxCalls;
+    this.enforce = enforce;
+  }
+
+  /**
+   * Counts a call about to start, failing fast once an enforced budget is used up
+   */
+  public void startCall() {
+    int count = calls.incrementAndGet();
+    if (enforce && maxCalls > 0 && count > maxCalls) {
+      throw new ApiException(HttpStatus.TOO_MANY_REQUESTS,
+        "Request exceeded its budget of %d SpiceDB calls.".formatted(maxCalls));
+    }
+  }
+
+  public void recordLatency(long nanos) {
+    latencyNanos.add(nanos);
+  }
+
+  public void recordRow() {
+    rows.increment();
+  }
+
+  public int getCalls() {
+    return calls.get();
+  }
+
+  public long getRows() {
+    return rows.sum();
+  }
+
+  public long getLatencyMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(latencyNanos.sum());
+  }
+
+  public boolean isExceeded() {
+    return maxCalls > 0 && calls.get() > maxCalls;
+  }
+
+  @Override
+  public String toString() {
+    return "calls=%d, rows=%d, time-ms=%d".formatted(getCalls(), getRows(), getLatencyMillis());
+  }
+}
@@ -0,0 +1,126 @@
+package com.access.control.service.context;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-request state: the SpiceDB call budget and the ZedToken reads must be at least as fresh
+ * as. Writes made during the request advance the token, so later reads in the same request see
+ * them, and the filter returns it to the client. It is bound to the request thread
+ * by CallContextFilter, and carried into executor tasks and gRPC future callbacks explicitly,
+ * since those run on other threads.
+ */
+public final class CallContext {
+
+  private static final ThreadLocal<CallContext> CURRENT = new ThreadLocal<>();
+
+  private final CallBudget budget;
+  private volatile String zedToken;
+  private volatile boolean written;
+
+  public CallContext(CallBudget budget, String zedToken) {
+    this.budget = budget;
+    this.zedToken = zedToken;
+  }
+
+  /**
+   * The context bound to this thread, or null outside of a request
+   */
+  public static CallContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * The ZedToken of the current request, or null to let SpiceDB pick a revision
+   */
+  public static String currentZedToken() {
+    CallContext context = current();
+    return context == null ? null : context.zedToken;
+  }
+
+  public CallBudget getBudget() {
+    return budget;
+  }
+
+  public String getZedToken() {
+    return zedToken;
+  }
+
+  /**
+   * True once a write has recorded its token, which is then returned to the client
+   */
+  public boolean isWritten() {
+    return written;
+  }
+
+  public void recordWrite(String writtenAt) {
+    zedToken = writtenAt;
+    written = true;
+  }
+
+  /**
+   * Binds this context to the current thread until the returned scope is closed
+   */
+  public Scope attach() {
+    CallContext previous = CURRENT.get();
+    CURRENT.set(this);
+    return () -> {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    };
+  }
+
+  public static void runWith(CallContext context, Runnable task) {
+    if (context == null) {
+      task.run();
+      return;
+    }
+    try (Scope ignored = context.attach()) {
+      task.run();
+    }
+  }
+
+  /**
+   * Runs the task with no context bound, for calls made on behalf of several requests, which
+   * charge each of them themselves
+   */
+  public static void runDetached(Runnable task) {
+    CallContext previous = CURRENT.get();
+    CURRENT.remove();
+    try {
+      task.run();
+    } finally {
+      if (previous != null) {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Wraps the task so it runs with the context of the calling thread
+   */
+  public static Runnable propagate(Runnable task) {
+    CallContext context = current();
+    return context == null ? task : () -> runWith(context, task);
+  }
+
+  public static <T> Supplier<T> propagate(Supplier<T> task) {
+    CallContext context = current();
+    if (context == null) {
+      return task;
+    }
+    return () -> {
+      try (Scope ignored = context.attach()) {
+        return task.get();
+      }
+    };
+  }
+
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,47 @@
+package com.access.control.service.context;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every task with the CallContext of the thread that submitted it
+ */
+@RequiredArgsConstructor
+public class CallContextExecutorService extends AbstractExecutorService {
+
+  private final ExecutorService delegate;
+
+  @Override
+  public void execute(Runnable command) {
+    delegate.execute(CallContext.propagate(command));
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+}
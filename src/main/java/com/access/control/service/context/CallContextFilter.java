@@ -0,0 +1,129 @@
+package com.access.control.service.context;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static com.access.control.service.utils.constants.SPICEDB_CALLS;
+import static com.access.control.service.utils.constants.TENANT_ID;
+import static com.access.control.service.utils.constants.ZED_TOKEN;
+
+/**
+ * Opens a CallContext for each request, seeded with the client's X-Zed-Token. It reports the
+ * request's SpiceDB usage in the X-SpiceDB-Calls response header, returns the token of any write
+ * in X-Zed-Token, and logs requests that go over the configured call budget. The context is
+ * kept as a request attribute so the async dispatch of a CompletableFuture endpoint reuses it.
+ */
+@Slf4j
+@Component
+public class CallContextFilter extends OncePerRequestFilter {
+
+  private static final String ATTRIBUTE = CallContext.class.getName();
+
+  @Value("${acl.call-budget.max-calls:0}")
+  private int maxCalls;
+
+  @Value("${acl.call-budget.enforce:false}")
+  private boolean enforce;
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    CallContext context = (CallContext) request.getAttribute(ATTRIBUTE);
+    if (context == null) {
+      String zedToken = request.getHeader(ZED_TOKEN);
+      context = new CallContext(new CallBudget(maxCalls, enforce),
+        zedToken == null || zedToken.isBlank() ? null : zedToken);
+      request.setAttribute(ATTRIBUTE, context);
+      // The async dispatch gets this same wrapper back from the AsyncContext
+      response = new ContextHeaderResponse(response, context);
+    }
+
+    try (CallContext.Scope ignored = context.attach()) {
+      filterChain.doFilter(request, response);
+    } finally {
+      if (!request.isAsyncStarted()) {
+        report(request, context.getBudget());
+      }
+    }
+  }
+
+  private void report(HttpServletRequest request, CallBudget budget) {
+    if (budget.isExceeded()) {
+      log.warn("{} {} for tenant {} went over the budget of {} SpiceDB calls: {}",
+        request.getMethod(), request.getRequestURI(), request.getHeader(TENANT_ID), maxCalls, budget);
+    } else if (log.isDebugEnabled()) {
+      log.debug("{} {} SpiceDB usage: {}", request.getMethod(), request.getRequestURI(), budget);
+    }
+  }
+
+  /**
+   * Sets the headers just before the response commits, once the handler has made its calls.
+   * Streamed responses report what happened before the first byte was written.
+   */
+  private static class ContextHeaderResponse extends HttpServletResponseWrapper {
+
+    private final CallContext context;
+    private boolean headerWritten;
+
+    ContextHeaderResponse(HttpServletResponse response, CallContext context) {
+      super(response);
+      this.context = context;
+    }
+
+    private void writeHeader() {
+      if (!headerWritten && !isCommitted()) {
+        setHeader(SPICEDB_CALLS, context.getBudget().toString());
+        if (context.isWritten()) {
+          setHeader(ZED_TOKEN, context.getZedToken());
+        }
+      }
+      headerWritten = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      writeHeader();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      writeHeader();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      writeHeader();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      writeHeader();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      writeHeader();
+      super.sendError(sc, msg);
+    }
+  }
+}
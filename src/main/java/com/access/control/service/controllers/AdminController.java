@@ -0,0 +1,39 @@
+package com.access.control.service.controllers;
+
+import com.access.control.service.cache.AncestorCache;
+import com.access.control.service.cache.PermissionDecisionCache;
+import com.access.control.service.cache.SubjectListCache;
+import com.access.control.service.dto.CacheStats;
+import com.access.control.service.dto.MirrorStatus;
+import com.access.control.service.mirror.RelationshipGraphMirror;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminController {
+
+  private final PermissionDecisionCache permissionDecisionCache;
+  private final AncestorCache ancestorCache;
+  private final SubjectListCache subjectListCache;
+  private final RelationshipGraphMirror relationshipGraphMirror;
+
+  @GetMapping("/caches")
+  public ResponseEntity<List<CacheStats>> getCacheStats() {
+    return ResponseEntity.ok(List.of(permissionDecisionCache.stats(), ancestorCache.stats(),
+      subjectListCache.stats()));
+  }
+
+  @GetMapping("/mirror")
+  public ResponseEntity<MirrorStatus> getMirrorStatus() {
+    return ResponseEntity.ok(relationshipGraphMirror.status());
+  }
+}
@@ -1,16 +1,26 @@
 package com.access.control.service.controllers;
 
+import com.access.control.service.context.CallContext;
 import com.access.control.service.dto.ApiResponse;
 import com.access.control.service.dto.GroupAccessRequest;
 import com.access.control.service.services.GroupService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
+import static com.access.control.service.utils.constants.NEXT_CURSOR;
+
 @RestController
 @RequestMapping("/api/groups")
 @RequiredArgsConstructor
@@ -18,6 +28,7 @@ import java.util.List;
 public class GroupController {
 
   private final GroupService groupService;
+  private final ObjectMapper objectMapper;
 
   @PostMapping
   public ResponseEntity<ApiResponse> createGroup(
@@ -42,11 +53,51 @@ public class GroupController {
       .build());
   }
 
+  /**
+   * Streams members as a JSON array while they are looked up. With a limit, returns one page
+   * and the cursor for the next one in the X-Next-Cursor header.
+   */
   @GetMapping("/{groupId}/members")
-  public ResponseEntity<List<String>> getAllMembers(
+  public ResponseEntity<StreamingResponseBody> getAllMembers(
     @PathVariable String groupId,
+    @RequestParam(required = false) Integer limit,
+    @RequestParam(required = false) String cursor,
     HttpServletRequest httpServletRequest) {
-    return ResponseEntity.ok(groupService.getAllMembers(groupId, httpServletRequest));
+    groupService.validateMemberRead(groupId, limit, httpServletRequest);
+
+    if (limit == null) {
+      // The body is written on another thread, which must still see this request's CallContext
+      CallContext context = CallContext.current();
+      return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(outputStream -> CallContext.runWith(context, () -> {
+          try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartArray();
+            groupService.streamMembers(groupId, member -> writeMember(generator, member));
+            generator.writeEndArray();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }));
+    }
+
+    // A page is bounded by the limit, so it is read before the cursor header is sent
+    List<String> members = new ArrayList<>(limit);
+    String nextCursor = groupService.getMemberPage(groupId, limit, cursor, members::add);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+    if (nextCursor != null) {
+      response.header(NEXT_CURSOR, nextCursor);
+    }
+    return response.body(outputStream -> objectMapper.writeValue(outputStream, members));
+  }
+
+  private static void writeMember(JsonGenerator generator, String member) {
+    try {
+      // The generator hands its buffer to the response whenever it fills up
+      generator.writeString(member);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
   @DeleteMapping("/{groupId}/members/{memberId}")
@@ -1,15 +1,30 @@
 package com.access.control.service.controllers;
 
+import com.access.control.service.context.CallContext;
 import com.access.control.service.dto.*;
-import com.acl.project.dto.*;
+import com.access.control.service.enums.Direction;
+import com.access.control.service.enums.Permission;
+import com.access.control.service.enums.Relation;
 import com.access.control.service.enums.Resource;
 import com.access.control.service.services.HierarchyService;
 import com.access.control.service.services.ResourceService;
+import com.access.control.service.utils.NdJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.access.control.service.utils.constants.TENANT_ID;
 
 @RestController
 @RequestMapping("/api/resources")
@@ -19,6 +34,7 @@ public class ResourceController {
 
   private final ResourceService resourceService;
   private final HierarchyService hierarchyService;
+  private final ObjectMapper objectMapper;
 
   @PostMapping
   public ResponseEntity<ApiResponse> create(
@@ -31,15 +47,46 @@ public class ResourceController {
       .requestBody(createResource).build());
   }
 
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+    produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> importResources(
+    HttpServletRequest httpServletRequest) throws IOException {
+    String tenantId = httpServletRequest.getHeader(TENANT_ID);
+    InputStream body = httpServletRequest.getInputStream();
+    log.info("Bulk import request for {}", tenantId);
+    CallContext context = CallContext.current();
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(outputStream -> CallContext.runWith(context, () -> {
+        try {
+          resourceService.importResources(body, tenantId,
+            new NdJsonWriter(objectMapper, outputStream)::write);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+  }
+
   @GetMapping
-  public ResponseEntity<ApiResponse> checkPermission(
+  public CompletableFuture<ResponseEntity<ApiResponse>> checkPermission(
     @RequestBody PermissionCheckRequest permissionCheckRequest,
     HttpServletRequest httpServletRequest) {
     log.info("Permission Check Request: {}", permissionCheckRequest);
-    boolean allowed = resourceService.checkPermission(permissionCheckRequest, httpServletRequest);
-    return ResponseEntity.ok(ApiResponse.builder()
-      .msg(allowed ? "Permission granted" : "Permission denied")
-      .allowed(allowed).build());
+    return resourceService.checkPermission(permissionCheckRequest, httpServletRequest)
+      .thenApply(allowed -> ResponseEntity.ok(ApiResponse.builder()
+        .msg(allowed ? "Permission granted" : "Permission denied")
+        .allowed(allowed).build()));
+  }
+
+  @PostMapping("/check/bulk")
+  public ResponseEntity<List<PermissionCheckResult>> checkPermissions(
+    @RequestBody BulkPermissionCheckRequest bulkPermissionCheckRequest,
+    HttpServletRequest httpServletRequest) {
+    log.info("Bulk Permission Check Request: {} items",
+      bulkPermissionCheckRequest.getItems() == null ? 0 : bulkPermissionCheckRequest.getItems().size());
+    return ResponseEntity.ok(
+      resourceService.checkPermissions(bulkPermissionCheckRequest, httpServletRequest)
+    );
   }
 
   @DeleteMapping
@@ -48,46 +95,153 @@ public class ResourceController {
     @RequestParam String resourceId,
     HttpServletRequest httpServletRequest) {
     log.info("Delete Request: {}", resource);
-    resourceService.deleteResource(resource, resourceId, httpServletRequest);
+    String jobId = resourceService.deleteResource(resource, resourceId, httpServletRequest);
     return ResponseEntity.ok(ApiResponse.builder()
       .msg("Delete the resource")
       .resourceId(resourceId).resource(resource)
+      .jobId(jobId)
       .build());
 
   }
 
+  /**
+   * Progress of the background job removing a deleted folder's descendants
+   */
+  @GetMapping("/delete-jobs/{jobId}")
+  public ResponseEntity<DeleteJob> getDeleteJob(
+    @PathVariable String jobId,
+    HttpServletRequest httpServletRequest) {
+    return ResponseEntity.ok(resourceService.getDeleteJob(jobId, httpServletRequest));
+  }
+
   @PostMapping("/grant")
-  public ResponseEntity<ApiResponse> grant(
+  public CompletableFuture<ResponseEntity<ApiResponse>> grant(
     @RequestBody PermissionAccessRequest permissionAccessRequest,
     HttpServletRequest httpServletRequest) {
     log.info("Grant Request: {}", permissionAccessRequest);
-    resourceService.grantPermission(permissionAccessRequest, httpServletRequest);
-    return ResponseEntity.ok(ApiResponse.builder()
-      .msg("Permission granted successfully")
-      .requestBody(permissionAccessRequest)
-      .build());
+    return resourceService.grantPermission(permissionAccessRequest, httpServletRequest)
+      .thenApply(ignored -> ResponseEntity.ok(ApiResponse.builder()
+        .msg("Permission granted successfully")
+        .requestBody(permissionAccessRequest)
+        .build()));
   }
 
   @DeleteMapping("/revoke")
-  public ResponseEntity<ApiResponse> Revoke(
+  public CompletableFuture<ResponseEntity<ApiResponse>> Revoke(
     @RequestBody PermissionAccessRequest permissionAccessRequest,
     HttpServletRequest httpServletRequest) {
     log.info("Revoke Request: {}", permissionAccessRequest);
-    resourceService.revokePermission(permissionAccessRequest, httpServletRequest);
-    return ResponseEntity.ok(ApiResponse.builder()
-      .msg("Permission revoked successfully")
-      .requestBody(permissionAccessRequest)
-      .build());
+    return resourceService.revokePermission(permissionAccessRequest, httpServletRequest)
+      .thenApply(ignored -> ResponseEntity.ok(ApiResponse.builder()
+        .msg("Permission revoked successfully")
+        .requestBody(permissionAccessRequest)
+        .build()));
   }
 
   @GetMapping("/hierarchy")
   public ResponseEntity<HierarchyResponse> getCompleteHierarchy(
     @RequestParam Resource resource,
     @RequestParam String resourceId,
+    @RequestParam(required = false) Integer maxDepth,
+    @RequestParam(required = false) Integer maxNodes,
     HttpServletRequest httpServletRequest) {
     log.info("Get complete hierarchy for {}:{}", resource, resourceId);
     return ResponseEntity.ok(
-      hierarchyService.getCompleteHierarchy(resource, resourceId, httpServletRequest)
+      hierarchyService.getCompleteHierarchy(resource, resourceId, maxDepth, maxNodes, httpServletRequest)
     );
   }
-}
\ No newline at end of file
+
+  /**
+   * Streams the hierarchy as NDJSON while it is walked: one relation per line, parents first,
+   * then the summary as the last line
+   */
+  @GetMapping(value = "/hierarchy", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamHierarchy(
+    @RequestParam Resource resource,
+    @RequestParam String resourceId,
+    @RequestParam(required = false) Integer maxDepth,
+    @RequestParam(required = false) Integer maxNodes,
+    HttpServletRequest httpServletRequest) {
+    log.info("Stream hierarchy for {}:{}", resource, resourceId);
+    hierarchyService.validateHierarchyRead(resource, resourceId, maxDepth, maxNodes, httpServletRequest);
+    String tenantId = httpServletRequest.getHeader(TENANT_ID);
+
+    // The body is written on another thread, which must still see this request's CallContext
+    CallContext context = CallContext.current();
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(outputStream -> CallContext.runWith(context, () -> {
+        NdJsonWriter writer = new NdJsonWriter(objectMapper, outputStream);
+        writer.write(hierarchyService.streamHierarchy(resource, resourceId, maxDepth, maxNodes,
+          tenantId, writer::write));
+      }));
+  }
+
+  /**
+   * Streams, as NDJSON, every tenant holding the permission on the resource, including those
+   * who get it through groups and parent folders
+   */
+  @GetMapping(value = "/{resource}/{resourceId}/subjects", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamSubjects(
+    @PathVariable Resource resource,
+    @PathVariable String resourceId,
+    @RequestParam(defaultValue = "READ") Permission permission,
+    HttpServletRequest httpServletRequest) {
+    log.info("Stream subjects with {} permission on {}:{}", permission, resource, resourceId);
+    resourceService.validateSubjectRead(resource, resourceId, httpServletRequest);
+
+    CallContext context = CallContext.current();
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(outputStream -> CallContext.runWith(context, () -> {
+        NdJsonWriter writer = new NdJsonWriter(objectMapper, outputStream);
+        resourceService.streamSubjects(resource, resourceId, permission, writer::write);
+      }));
+  }
+
+  /**
+   * Streams, as NDJSON, one page of the resources of a type the tenant holds the permission on,
+   * followed by the cursor for the next page
+   */
+  @GetMapping(value = "/accessible", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAccessibleResources(
+    @RequestParam Resource resource,
+    @RequestParam(defaultValue = "READ") Permission permission,
+    @RequestParam(required = false) Integer limit,
+    @RequestParam(required = false) String cursor,
+    HttpServletRequest httpServletRequest) {
+    log.info("Stream {} resources with {} permission", resource, permission);
+    resourceService.validateAccessibleRead(limit, httpServletRequest);
+    String tenantId = httpServletRequest.getHeader(TENANT_ID);
+
+    CallContext context = CallContext.current();
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(outputStream -> CallContext.runWith(context, () -> {
+        NdJsonWriter writer = new NdJsonWriter(objectMapper, outputStream);
+        writer.write(resourceService.streamAccessibleResources(resource, permission, tenantId,
+          limit, cursor, writer::write));
+      }));
+  }
+
+  @GetMapping(value = "/relationships", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamRelationships(
+    @RequestParam Resource resource,
+    @RequestParam String resourceId,
+    @RequestParam(defaultValue = "PARENT") Relation relation,
+    @RequestParam(defaultValue = "OUTGOING") Direction direction,
+    @RequestParam(required = false) Integer limit,
+    @RequestParam(required = false) String cursor,
+    HttpServletRequest httpServletRequest) {
+    log.info("Stream {} {} relationships for {}:{}", direction, relation, resource, resourceId);
+    resourceService.validateRelationshipRead(resource, resourceId, relation, limit, httpServletRequest);
+    CallContext context = CallContext.current();
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(outputStream -> CallContext.runWith(context, () -> {
+        NdJsonWriter writer = new NdJsonWriter(objectMapper, outputStream);
+        writer.write(resourceService.streamRelationships(resource, resourceId, relation, direction,
+          limit, cursor, writer::write));
+      }));
+  }
+}
@@ -0,0 +1,22 @@
+package com.access.control.service.dto;
+
+import com.access.control.service.enums.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One resource the tenant holds the permission on; conditional when it depends on a caveat,
+ * e.g. a password-protected file
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessibleResource {
+
+  private Resource resource;
+  private String resourceId;
+  private boolean conditional;
+}
@@ -25,6 +25,7 @@ public class ApiResponse {
   private String resourceId;
   private Object requestBody;
   private Boolean allowed;
+  private String jobId;
 
   @Override
   public String toString() {
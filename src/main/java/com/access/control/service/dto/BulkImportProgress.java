@@ -0,0 +1,25 @@
+package com.access.control.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkImportProgress {
+
+  private Integer chunk;
+  private Integer resources;
+  private Integer rejected;
+  private Long relationshipsLoaded;
+  private Long totalResources;
+  private Long totalRelationshipsLoaded;
+  private Integer failedChunks;
+  private String error;
+  private Boolean done;
+}
@@ -0,0 +1,25 @@
+package com.access.control.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+
+  private String name;
+  private Boolean enabled;
+  private Long size;
+  private Long hits;
+  private Long misses;
+  private Long evictions;
+
+  public double getHitRate() {
+    long requests = (hits == null ? 0 : hits) + (misses == null ? 0 : misses);
+    return requests == 0 ? 0.0 : (double) hits / requests;
+  }
+}
@@ -0,0 +1,21 @@
+package com.access.control.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trailing line of a streamed page; a missing cursor means there is nothing left to read
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ContinuationToken {
+
+  private String cursor;
+  private Long count;
+}
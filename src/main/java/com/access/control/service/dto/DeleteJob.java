@@ -0,0 +1,38 @@
+package com.access.control.service.dto;
+
+import com.access.control.service.enums.DeleteJobStatus;
+import com.access.control.service.enums.Resource;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * State of a cascading subtree delete. The pending queue is persisted so the walk can resume
+ * after a restart; the status endpoint reports its size instead.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeleteJob {
+
+  private String jobId;
+  private Resource resource;
+  private String resourceId;
+  private String tenantId;
+  private DeleteJobStatus status;
+  private String zedToken;
+  private List<String> pending;
+  private Integer pendingNodes;
+  private Long nodesDeleted;
+  private Long relationshipsDeleted;
+  private String error;
+  private Instant createdAt;
+  private Instant updatedAt;
+}
@@ -18,4 +18,5 @@ public class HierarchySummary {
   private Integer indirectChildren;
   private Integer maxParentLevel;
   private Integer maxChildLevel;
+  private Boolean truncated;
 }
\ No newline at end of file
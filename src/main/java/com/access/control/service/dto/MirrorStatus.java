@@ -0,0 +1,29 @@
+package com.access.control.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MirrorStatus {
+
+  private Boolean enabled;
+  private Boolean ready;
+  private Integer nodes;
+  private Long edges;
+  private String seenRevision;
+  private String appliedRevision;
+  private Instant appliedAt;
+  private Long lagMillis;
+  private Integer pendingResponses;
+  private Long updatesApplied;
+  private Long reconnects;
+}
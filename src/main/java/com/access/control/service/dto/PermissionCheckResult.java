@@ -0,0 +1,22 @@
+package com.access.control.service.dto;
+
+import com.access.control.service.enums.Permission;
+import com.access.control.service.enums.Resource;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PermissionCheckResult {
+
+  private Resource resource;
+  private String resourceId;
+  private Permission permission;
+  private Boolean allowed;
+}
@@ -0,0 +1,22 @@
+package com.access.control.service.dto;
+
+import com.access.control.service.enums.Subject;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One subject holding a permission on a resource; conditional when it depends on a caveat,
+ * e.g. a password-protected file
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceSubject {
+
+  private Subject subject;
+  private String subjectId;
+  private boolean conditional;
+}
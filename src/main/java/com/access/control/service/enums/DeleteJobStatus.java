@@ -0,0 +1,7 @@
+package com.access.control.service.enums;
+
+public enum DeleteJobStatus {
+  RUNNING,
+  COMPLETED,
+  FAILED
+}
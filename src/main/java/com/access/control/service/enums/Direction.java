@@ -0,0 +1,6 @@
+package com.access.control.service.enums;
+
+public enum Direction {
+  OUTGOING,
+  INCOMING
+}
@@ -2,6 +2,9 @@ package com.access.control.service.enums;
 
 import io.swagger.v3.oas.annotations.Hidden;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum Permission {
 
  READ,
@@ -12,6 +15,30 @@ public enum Permission {
  @Hidden
  GRANT,
  @Hidden
- REVOKE
+ REVOKE;
+
+  private static final Map<String, Permission> BY_WIRE_NAME = new HashMap<>();
+
+  static {
+    for (Permission value : values()) {
+      BY_WIRE_NAME.put(value.wireName, value);
+    }
+  }
+
+  private final String wireName = name().toLowerCase();
+
+  /**
+   * Lowercase name used in the SpiceDB schema
+   */
+  public String getWireName() {
+    return wireName;
+  }
 
+  public static Permission fromWireName(String wireName) {
+    Permission value = BY_WIRE_NAME.get(wireName);
+    if (value == null) {
+      throw new IllegalArgumentException("Unknown permission: " + wireName);
+    }
+    return value;
+  }
 }
@@ -2,6 +2,9 @@ package com.access.control.service.enums;
 
 import io.swagger.v3.oas.annotations.Hidden;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum Relation {
 
   EDITOR, VIEWER,
@@ -13,5 +16,30 @@ public enum Relation {
   @Hidden
   PARENT,
   @Hidden
-  OWNER
+  OWNER;
+
+  private static final Map<String, Relation> BY_WIRE_NAME = new HashMap<>();
+
+  static {
+    for (Relation value : values()) {
+      BY_WIRE_NAME.put(value.wireName, value);
+    }
+  }
+
+  private final String wireName = name().toLowerCase();
+
+  /**
+   * Lowercase name used in the SpiceDB schema
+   */
+  public String getWireName() {
+    return wireName;
+  }
+
+  public static Relation fromWireName(String wireName) {
+    Relation value = BY_WIRE_NAME.get(wireName);
+    if (value == null) {
+      throw new IllegalArgumentException("Unknown relation: " + wireName);
+    }
+    return value;
+  }
 }
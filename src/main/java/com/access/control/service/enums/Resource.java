@@ -2,10 +2,38 @@ package com.access.control.service.enums;
 
 import io.swagger.v3.oas.annotations.Hidden;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum Resource {
 
   FILE, FOLDER,
 
   @Hidden
-  GROUP
+  GROUP;
+
+  private static final Map<String, Resource> BY_WIRE_NAME = new HashMap<>();
+
+  static {
+    for (Resource value : values()) {
+      BY_WIRE_NAME.put(value.wireName, value);
+    }
+  }
+
+  private final String wireName = name().toLowerCase();
+
+  /**
+   * Lowercase name used in the SpiceDB schema
+   */
+  public String getWireName() {
+    return wireName;
+  }
+
+  public static Resource fromWireName(String wireName) {
+    Resource value = BY_WIRE_NAME.get(wireName);
+    if (value == null) {
+      throw new IllegalArgumentException("Unknown resource: " + wireName);
+    }
+    return value;
+  }
 }
@@ -2,9 +2,39 @@ package com.access.control.service.enums;
 
 import io.swagger.v3.oas.annotations.Hidden;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum Subject {
   @Hidden
   TENANT,
   @Hidden
-  GROUP
+  GROUP,
+  @Hidden
+  FOLDER;
+
+  private static final Map<String, Subject> BY_WIRE_NAME = new HashMap<>();
+
+  static {
+    for (Subject value : values()) {
+      BY_WIRE_NAME.put(value.wireName, value);
+    }
+  }
+
+  private final String wireName = name().toLowerCase();
+
+  /**
+   * Lowercase name used in the SpiceDB schema
+   */
+  public String getWireName() {
+    return wireName;
+  }
+
+  public static Subject fromWireName(String wireName) {
+    Subject value = BY_WIRE_NAME.get(wireName);
+    if (value == null) {
+      throw new IllegalArgumentException("Unknown subject: " + wireName);
+    }
+    return value;
+  }
 }
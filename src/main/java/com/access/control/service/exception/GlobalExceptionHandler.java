@@ -1,7 +1,9 @@
 package com.access.control.service.exception;
 
 
+import io.grpc.StatusRuntimeException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -17,6 +19,21 @@ public class GlobalExceptionHandler {
       .body(ex.getErrorMessage());
   }
 
+  /**
+   * SpiceDB being down, or the circuit breaker failing calls fast, is 503; a missed deadline is 504
+   */
+  @ExceptionHandler(StatusRuntimeException.class)
+  public ResponseEntity<?> handleStatusRuntimeException(StatusRuntimeException ex) {
+    log.error("SpiceDB call failed: ", ex);
+    HttpStatus status = switch (ex.getStatus().getCode()) {
+      case UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
+      case DEADLINE_EXCEEDED -> HttpStatus.GATEWAY_TIMEOUT;
+      default -> HttpStatus.INTERNAL_SERVER_ERROR;
+    };
+    return ResponseEntity.status(status)
+      .body(ex.getMessage());
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<?> handleApiException(Exception ex) {
     log.error("Exception: ", ex);
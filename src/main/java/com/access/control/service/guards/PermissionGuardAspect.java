@@ -0,0 +1,113 @@
+package com.access.control.service.guards;
+
+import com.access.control.service.builders.PermissionOptions;
+import com.access.control.service.enums.Resource;
+import com.access.control.service.enums.Subject;
+import com.access.control.service.exception.ApiException;
+import com.access.control.service.services.AuthorizationService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.access.control.service.utils.constants.TENANT_ID;
+
+/**
+ * Evaluates the RequirePermission guards of a method before it runs. A single guard is one
+ * CheckPermission; several are sent as one CheckBulkPermissions request instead of serial checks.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class PermissionGuardAspect {
+
+  private static final ExpressionParser PARSER = new SpelExpressionParser();
+  private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+  private final AuthorizationService authorizationService;
+
+  // Guards are parsed once per method
+  private final Map<Method, List<Guard>> guards = new ConcurrentHashMap<>();
+
+  @Around("@annotation(com.access.control.service.guards.RequirePermission) || "
+    + "@annotation(com.access.control.service.guards.RequirePermissions)")
+  public Object check(ProceedingJoinPoint joinPoint) throws Throwable {
+    Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+    List<Guard> methodGuards = guards.computeIfAbsent(method, PermissionGuardAspect::parse);
+
+    MethodBasedEvaluationContext context =
+      new MethodBasedEvaluationContext(joinPoint.getTarget(), method, joinPoint.getArgs(), PARAMETER_NAMES);
+    String tenantId = tenantId(joinPoint.getArgs());
+
+    List<PermissionOptions> checks = new ArrayList<>(methodGuards.size());
+    for (Guard guard : methodGuards) {
+      checks.add(PermissionOptions.builder()
+        .resource(guard.resource(context)).resourceId(guard.resourceId().getValue(context, String.class))
+        .subject(Subject.TENANT).subjectId(tenantId)
+        .permission(guard.annotation().permission()).build());
+    }
+
+    List<Boolean> allowed = checks.size() == 1
+      ? List.of(authorizationService.checkPermission(checks.get(0)))
+      : authorizationService.checkBulkPermissions(checks);
+    for (int i = 0; i < methodGuards.size(); i++) {
+      if (!allowed.get(i)) {
+        RequirePermission annotation = methodGuards.get(i).annotation();
+        throw new ApiException(annotation.status(), annotation.message());
+      }
+    }
+    return joinPoint.proceed();
+  }
+
+  private static List<Guard> parse(Method method) {
+    return AnnotatedElementUtils.findMergedRepeatableAnnotations(method, RequirePermission.class).stream()
+      .map(annotation -> annotation.resource().startsWith("#")
+        ? new Guard(annotation, null, PARSER.parseExpression(annotation.resource()),
+            PARSER.parseExpression(annotation.resourceId()))
+        : new Guard(annotation, Resource.valueOf(annotation.resource()), null,
+            PARSER.parseExpression(annotation.resourceId())))
+      .toList();
+  }
+
+  /**
+   * The tenant header of the HttpServletRequest argument, or of the current request
+   */
+  private static String tenantId(Object[] args) {
+    for (Object arg : args) {
+      if (arg instanceof HttpServletRequest request) {
+        return request.getHeader(TENANT_ID);
+      }
+    }
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+      return attributes.getRequest().getHeader(TENANT_ID);
+    }
+    throw new ApiException(HttpStatus.UNAUTHORIZED, "No tenant to check permissions for.");
+  }
+
+  private record Guard(RequirePermission annotation, Resource resource, Expression resourceExpression,
+                       Expression resourceId) {
+
+    Resource resource(MethodBasedEvaluationContext context) {
+      return resource != null ? resource : resourceExpression.getValue(context, Resource.class);
+    }
+  }
+}
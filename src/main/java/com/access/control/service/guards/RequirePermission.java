@@ -0,0 +1,36 @@
+package com.access.control.service.guards;
+
+import com.access.control.service.enums.Permission;
+import org.springframework.http.HttpStatus;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requires the requesting tenant to hold a permission before the method runs. All guards of a
+ * method are checked together in one round-trip; if any fails, the first failing guard in
+ * declaration order is thrown as an ApiException with its status and message.
+ * <p>
+ * resource is a Resource name, or a SpEL expression starting with # that evaluates to a Resource.
+ * resourceId is a SpEL expression over the method parameters, e.g. #groupId.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RequirePermissions.class)
+public @interface RequirePermission {
+
+  String resource();
+
+  String resourceId();
+
+  Permission permission();
+
+  HttpStatus status() default HttpStatus.FORBIDDEN;
+
+  String message();
+}
@@ -0,0 +1,57 @@
+package com.access.control.service.interceptors;
+
+import com.access.control.service.context.CallBudget;
+import com.access.control.service.context.CallContext;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Charges every SpiceDB call to the budget of the request that made it. The budget is looked up
+ * on the calling thread, since call callbacks run on gRPC's executor.
+ */
+@Component
+public class CallBudgetInterceptor implements ClientInterceptor {
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                             CallOptions callOptions, Channel next) {
+    CallContext context = CallContext.current();
+    if (context == null) {
+      return next.newCall(method, callOptions);
+    }
+    CallBudget budget = context.getBudget();
+    budget.startCall();
+
+    // Rows are only counted for streaming responses; a unary response is the call itself
+    boolean streaming = !method.getType().serverSendsOneMessage();
+    return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        long startNanos = System.nanoTime();
+        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+          @Override
+          public void onMessage(RespT message) {
+            if (streaming) {
+              budget.recordRow();
+            }
+            super.onMessage(message);
+          }
+
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            budget.recordLatency(System.nanoTime() - startNanos);
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      }
+    };
+  }
+}
@@ -0,0 +1,185 @@
+package com.access.control.service.interceptors;
+
+import com.authzed.api.v1.WatchServiceGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops calling SpiceDB once too many recent calls failed. Over the last windowSize calls, when
+ * at least minCalls finished and failureRatePercent of them failed with an availability error,
+ * the breaker opens and calls fail fast with UNAVAILABLE for openMillis. After that a single
+ * probe call goes through: the breaker closes when it succeeds and reopens when it fails.
+ * The mirror's Watch stream is left out, since it reconnects on its own.
+ */
+@Slf4j
+@Component
+public class CircuitBreakerInterceptor implements ClientInterceptor {
+
+  public static final String STATE = "spicedb.circuit.state";
+  public static final String REJECTED = "spicedb.circuit.rejected";
+
+  // Errors of SpiceDB itself, as opposed to answers to a bad request
+  private static final Set<Status.Code> FAILURES = EnumSet.of(Status.Code.UNAVAILABLE,
+    Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED, Status.Code.INTERNAL, Status.Code.UNKNOWN);
+
+  private enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private enum Admission { CALL, PROBE, REJECT }
+
+  private final boolean enabled;
+  private final int minCalls;
+  private final int failureRatePercent;
+  private final long openNanos;
+  private final Counter rejected;
+
+  // Outcomes of the last calls, guarded by this
+  private final boolean[] failed;
+  private int next;
+  private int recorded;
+  private int failures;
+  private boolean probing;
+  private long openedAt;
+
+  private volatile State state = State.CLOSED;
+
+  public CircuitBreakerInterceptor(@Value("${spicedb.circuit-breaker.enabled:true}") boolean enabled,
+                                   @Value("${spicedb.circuit-breaker.window-size:100}") int windowSize,
+                                   @Value("${spicedb.circuit-breaker.min-calls:20}") int minCalls,
+                                   @Value("${spicedb.circuit-breaker.failure-rate-percent:50}") int failureRatePercent,
+                                   @Value("${spicedb.circuit-breaker.open-ms:5000}") long openMillis,
+                                   MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.failed = new boolean[windowSize];
+    this.minCalls = Math.min(minCalls, windowSize);
+    this.failureRatePercent = failureRatePercent;
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    this.rejected = Counter.builder(REJECTED).register(meterRegistry);
+    Gauge.builder(STATE, this, breaker -> breaker.state.ordinal())
+      .description("0 closed, 1 open, 2 half-open")
+      .register(meterRegistry);
+    log.info("SpiceDB circuit breaker enabled={}, windowSize={}, minCalls={}, failureRate={}%, open={}ms",
+      enabled, windowSize, minCalls, failureRatePercent, openMillis);
+  }
+
+  /**
+   * True while calls are being failed fast, i.e. the breaker is open or waiting for its probe
+   */
+  public boolean isOpen() {
+    return state != State.CLOSED;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                             CallOptions callOptions, Channel next) {
+    if (!enabled || WatchServiceGrpc.SERVICE_NAME.equals(method.getServiceName())) {
+      return next.newCall(method, callOptions);
+    }
+
+    Admission admission = admit();
+    if (admission == Admission.REJECT) {
+      rejected.increment();
+      throw Status.UNAVAILABLE.withDescription("SpiceDB circuit breaker is open").asRuntimeException();
+    }
+    boolean probe = admission == Admission.PROBE;
+
+    ClientCall<ReqT, RespT> call;
+    try {
+      call = next.newCall(method, callOptions);
+    } catch (RuntimeException e) {
+      // Rejected before reaching SpiceDB, e.g. by the call budget
+      record(Status.CANCELLED, probe);
+      throw e;
+    }
+    return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            record(status, probe);
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      }
+    };
+  }
+
+  private Admission admit() {
+    if (state == State.CLOSED) {
+      return Admission.CALL;
+    }
+    synchronized (this) {
+      if (state == State.CLOSED) {
+        return Admission.CALL;
+      }
+      if (probing || (state == State.OPEN && System.nanoTime() - openedAt < openNanos)) {
+        return Admission.REJECT;
+      }
+      state = State.HALF_OPEN;
+      probing = true;
+      return Admission.PROBE;
+    }
+  }
+
+  private synchronized void record(Status status, boolean probe) {
+    Status.Code code = status.getCode();
+    if (probe) {
+      probing = false;
+      if (FAILURES.contains(code)) {
+        open();
+      } else if (code != Status.Code.CANCELLED) {
+        close();
+      }
+      return;
+    }
+    // Cancelled calls say nothing about SpiceDB, and calls started before the breaker opened are late
+    if (code == Status.Code.CANCELLED || state != State.CLOSED) {
+      return;
+    }
+
+    if (recorded == failed.length) {
+      failures -= failed[next] ? 1 : 0;
+    } else {
+      recorded++;
+    }
+    failed[next] = FAILURES.contains(code);
+    failures += failed[next] ? 1 : 0;
+    next = (next + 1) % failed.length;
+
+    if (recorded >= minCalls && failures * 100 >= failureRatePercent * recorded) {
+      log.warn("SpiceDB circuit breaker opened: {} of the last {} calls failed, last with {}",
+        failures, recorded, code);
+      open();
+    }
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = System.nanoTime();
+  }
+
+  private void close() {
+    log.info("SpiceDB circuit breaker closed");
+    state = State.CLOSED;
+    recorded = 0;
+    failures = 0;
+    next = 0;
+  }
+}
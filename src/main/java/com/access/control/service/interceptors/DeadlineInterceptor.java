@@ -0,0 +1,55 @@
+package com.access.control.service.interceptors;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
+import io.grpc.MethodDescriptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives every SpiceDB call a deadline, so a slow SpiceDB node fails the call instead of holding
+ * the request thread. spicedb.deadlines.&lt;Method&gt;-ms sets it per gRPC method, e.g.
+ * spicedb.deadlines.CheckPermission-ms. Unary calls default to spicedb.deadlines.default-ms;
+ * streaming calls, such as the mirror's Watch stream or ImportBulkRelationships, whose length
+ * depends on the data sent, only get one when it is set for their method. 0 disables it, and
+ * an earlier deadline of the caller is kept.
+ */
+@Slf4j
+@Component
+public class DeadlineInterceptor implements ClientInterceptor {
+
+  private final Environment environment;
+  private final long defaultMillis;
+  private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+
+  public DeadlineInterceptor(Environment environment,
+                             @Value("${spicedb.deadlines.default-ms:5000}") long defaultMillis) {
+    this.environment = environment;
+    this.defaultMillis = defaultMillis;
+    log.info("SpiceDB call deadline default={}ms", defaultMillis);
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                             CallOptions callOptions, Channel next) {
+    long millis = deadlines.computeIfAbsent(method.getBareMethodName(), name ->
+      environment.getProperty("spicedb.deadlines." + name + "-ms", Long.class,
+        method.getType() == MethodDescriptor.MethodType.UNARY ? defaultMillis : 0L));
+    if (millis > 0) {
+      Deadline deadline = Deadline.after(millis, TimeUnit.MILLISECONDS);
+      if (callOptions.getDeadline() == null || deadline.isBefore(callOptions.getDeadline())) {
+        callOptions = callOptions.withDeadline(deadline);
+      }
+    }
+    return next.newCall(method, callOptions);
+  }
+}
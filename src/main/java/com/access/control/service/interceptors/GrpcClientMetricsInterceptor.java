@@ -0,0 +1,93 @@
+package com.access.control.service.interceptors;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latency by method and status code, and request/response message sizes by method,
+ * for every call made on the SpiceDB channel. Streaming calls are timed until the stream closes.
+ */
+@Component
+@RequiredArgsConstructor
+public class GrpcClientMetricsInterceptor implements ClientInterceptor {
+
+  public static final String REQUESTS = "spicedb.client.requests";
+  public static final String REQUEST_SIZE = "spicedb.client.request.size";
+  public static final String RESPONSE_SIZE = "spicedb.client.response.size";
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+  private final Map<String, DistributionSummary> requestSizes = new ConcurrentHashMap<>();
+  private final Map<String, DistributionSummary> responseSizes = new ConcurrentHashMap<>();
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                             CallOptions callOptions, Channel next) {
+    String methodName = method.getBareMethodName();
+    return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        long startNanos = System.nanoTime();
+        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+          @Override
+          public void onMessage(RespT message) {
+            recordSize(responseSizes, RESPONSE_SIZE, methodName, message);
+            super.onMessage(message);
+          }
+
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            timer(methodName, status.getCode()).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      }
+
+      @Override
+      public void sendMessage(ReqT message) {
+        recordSize(requestSizes, REQUEST_SIZE, methodName, message);
+        super.sendMessage(message);
+      }
+    };
+  }
+
+  private Timer timer(String methodName, Status.Code code) {
+    return timers.computeIfAbsent(methodName + ":" + code, key -> Timer.builder(REQUESTS)
+      .description("SpiceDB call latency")
+      .tag("method", methodName)
+      .tag("status", code.name())
+      .publishPercentileHistogram()
+      .register(meterRegistry));
+  }
+
+  private void recordSize(Map<String, DistributionSummary> summaries, String name, String methodName,
+                          Object message) {
+    if (message instanceof MessageLite protobuf) {
+      summaries.computeIfAbsent(methodName, key -> DistributionSummary.builder(name)
+          .description("SpiceDB message size")
+          .baseUnit("bytes")
+          .tag("method", methodName)
+          .publishPercentileHistogram()
+          .register(meterRegistry))
+        .record(protobuf.getSerializedSize());
+    }
+  }
+}
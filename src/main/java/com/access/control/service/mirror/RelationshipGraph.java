@@ -0,0 +1,160 @@
+package com.access.control.service.mirror;
+
+import com.access.control.service.dto.RelationshipInfo;
+import com.access.control.service.enums.Relation;
+import com.access.control.service.enums.Resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact PARENT graph: object IDs are dictionary-encoded to ints and both edge directions are
+ * kept as int adjacency arrays. Not thread-safe; RelationshipGraphMirror guards access.
+ */
+class RelationshipGraph {
+
+  private static final int[] EMPTY = new int[0];
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final Map<String, Integer> dictionary = new HashMap<>();
+  private Resource[] types = new Resource[INITIAL_CAPACITY];
+  private String[] objectIds = new String[INITIAL_CAPACITY];
+  private int[][] parents = new int[INITIAL_CAPACITY][];
+  private int[] parentCounts = new int[INITIAL_CAPACITY];
+  private int[][] children = new int[INITIAL_CAPACITY][];
+  private int[] childCounts = new int[INITIAL_CAPACITY];
+  private int nodes;
+  private long edges;
+
+  void addParent(Resource childType, String childId, Resource parentType, String parentId) {
+    int child = intern(childType, childId);
+    int parent = intern(parentType, parentId);
+
+    // Parent lists are short, so they are the cheap side for duplicate detection
+    if (indexOf(parents[child], parentCounts[child], parent) >= 0) {
+      return;
+    }
+    parents[child] = append(parents[child], parentCounts[child]++, parent);
+    children[parent] = append(children[parent], childCounts[parent]++, child);
+    edges++;
+  }
+
+  void removeParent(Resource childType, String childId, Resource parentType, String parentId) {
+    Integer child = dictionary.get(key(childType, childId));
+    Integer parent = dictionary.get(key(parentType, parentId));
+    if (child == null || parent == null) {
+      return;
+    }
+    if (remove(parents[child], parentCounts[child], parent)) {
+      parentCounts[child]--;
+      if (remove(children[parent], childCounts[parent], child)) {
+        childCounts[parent]--;
+      }
+      edges--;
+    }
+  }
+
+  /**
+   * Same shape as AuthorizationService.getOutgoingRelations(resource, resourceId, PARENT)
+   */
+  List<RelationshipInfo> parentsOf(Resource resource, String resourceId) {
+    Integer node = dictionary.get(key(resource, resourceId));
+    if (node == null) {
+      return List.of();
+    }
+    List<RelationshipInfo> relations = new ArrayList<>(parentCounts[node]);
+    for (int i = 0; i < parentCounts[node]; i++) {
+      int parent = parents[node][i];
+      relations.add(RelationshipInfo.builder()
+        .resource(resource).resourceId(resourceId)
+        .relation(Relation.PARENT)
+        .toResource(types[parent]).toResourceId(objectIds[parent])
+        .build());
+    }
+    return relations;
+  }
+
+  /**
+   * Same shape as AuthorizationService.getIncomingRelations(resource, resourceId, PARENT)
+   */
+  List<RelationshipInfo> childrenOf(Resource resource, String resourceId) {
+    Integer node = dictionary.get(key(resource, resourceId));
+    if (node == null) {
+      return List.of();
+    }
+    List<RelationshipInfo> relations = new ArrayList<>(childCounts[node]);
+    for (int i = 0; i < childCounts[node]; i++) {
+      int child = children[node][i];
+      relations.add(RelationshipInfo.builder()
+        .resource(types[child]).resourceId(objectIds[child])
+        .relation(Relation.PARENT)
+        .toResource(resource).toResourceId(resourceId)
+        .build());
+    }
+    return relations;
+  }
+
+  int nodeCount() {
+    return nodes;
+  }
+
+  long edgeCount() {
+    return edges;
+  }
+
+  private int intern(Resource type, String objectId) {
+    String key = key(type, objectId);
+    Integer existing = dictionary.get(key);
+    if (existing != null) {
+      return existing;
+    }
+
+    if (nodes == types.length) {
+      int capacity = nodes * 2;
+      types = Arrays.copyOf(types, capacity);
+      objectIds = Arrays.copyOf(objectIds, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+      parentCounts = Arrays.copyOf(parentCounts, capacity);
+      children = Arrays.copyOf(children, capacity);
+      childCounts = Arrays.copyOf(childCounts, capacity);
+    }
+    int node = nodes++;
+    types[node] = type;
+    objectIds[node] = objectId;
+    parents[node] = EMPTY;
+    children[node] = EMPTY;
+    dictionary.put(key, node);
+    return node;
+  }
+
+  private static String key(Resource type, String objectId) {
+    return type + ":" + objectId;
+  }
+
+  private static int[] append(int[] values, int count, int value) {
+    int[] target = count == values.length ? Arrays.copyOf(values, Math.max(2, count * 2)) : values;
+    target[count] = value;
+    return target;
+  }
+
+  private static int indexOf(int[] values, int count, int value) {
+    for (int i = 0; i < count; i++) {
+      if (values[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean remove(int[] values, int count, int value) {
+    int index = indexOf(values, count, value);
+    if (index < 0) {
+      return false;
+    }
+    System.arraycopy(values, index + 1, values, index, count - index - 1);
+    return true;
+  }
+}
@@ -0,0 +1,338 @@
+package com.access.control.service.mirror;
+
+import com.access.control.service.dto.MirrorStatus;
+import com.access.control.service.dto.RelationshipInfo;
+import com.access.control.service.enums.Relation;
+import com.access.control.service.enums.Resource;
+import com.authzed.api.v1.Consistency;
+import com.authzed.api.v1.ExportBulkRelationshipsRequest;
+import com.authzed.api.v1.ExportBulkRelationshipsResponse;
+import com.authzed.api.v1.PermissionsServiceGrpc;
+import com.authzed.api.v1.ReadSchemaRequest;
+import com.authzed.api.v1.Relationship;
+import com.authzed.api.v1.RelationshipFilter;
+import com.authzed.api.v1.RelationshipUpdate;
+import com.authzed.api.v1.SchemaServiceGrpc;
+import com.authzed.api.v1.WatchRequest;
+import com.authzed.api.v1.WatchResponse;
+import com.authzed.api.v1.WatchServiceGrpc;
+import com.authzed.api.v1.ZedToken;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory copy of the folder/file PARENT graph. It is bootstrapped from an
+ * ExportBulkRelationships snapshot and then follows the Watch stream from that snapshot's
+ * revision, so hierarchy walks can read edges locally instead of one ReadRelationships per node.
+ * The mirror is eventually consistent: a write is visible once its Watch response is applied.
+ * It only reports ready once the backlog since the snapshot has been applied. This Watch API has
+ * no checkpoints, so that is taken to be when every response received has been applied and the
+ * stream has been connected for spicedb.mirror.catch-up-ms.
+ */
+@Slf4j
+@Component
+public class RelationshipGraphMirror {
+
+  private static final String PARENT_RELATION = Relation.PARENT.getWireName();
+  private static final List<Resource> MIRRORED_RESOURCES = List.of(Resource.FOLDER, Resource.FILE);
+
+  private final PermissionsServiceGrpc.PermissionsServiceBlockingStub permissionsClient;
+  private final SchemaServiceGrpc.SchemaServiceBlockingStub schemaClient;
+  private final WatchServiceGrpc.WatchServiceStub watchClient;
+  private final boolean enabled;
+  private final long reconnectDelayMillis;
+  private final long catchUpMillis;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicLong updatesApplied = new AtomicLong();
+  private final AtomicLong reconnects = new AtomicLong();
+
+  private RelationshipGraph graph = new RelationshipGraph();
+  private volatile boolean ready;
+  private volatile boolean running;
+  private volatile ZedToken seenRevision;
+  private volatile ZedToken appliedRevision;
+  private volatile Instant appliedAt;
+  private volatile BlockingQueue<WatchSignal> pending = new LinkedBlockingQueue<>();
+  private volatile Context.CancellableContext watchContext;
+  private Thread worker;
+
+  public RelationshipGraphMirror(PermissionsServiceGrpc.PermissionsServiceBlockingStub permissionsClient,
+                                 SchemaServiceGrpc.SchemaServiceBlockingStub schemaClient,
+                                 WatchServiceGrpc.WatchServiceStub watchClient,
+                                 @Value("${spicedb.mirror.enabled:false}") boolean enabled,
+                                 @Value("${spicedb.mirror.reconnect-delay-ms:1000}") long reconnectDelayMillis,
+                                 @Value("${spicedb.mirror.catch-up-ms:1000}") long catchUpMillis) {
+    this.permissionsClient = permissionsClient;
+    this.schemaClient = schemaClient;
+    this.watchClient = watchClient;
+    this.enabled = enabled;
+    this.reconnectDelayMillis = reconnectDelayMillis;
+    this.catchUpMillis = catchUpMillis;
+    log.info("Relationship graph mirror enabled={}", enabled);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    worker = new Thread(this::run, "spicedb-graph-mirror");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    cancelWatch();
+    if (worker != null) {
+      worker.interrupt();
+    }
+  }
+
+  /**
+   * True once the snapshot is loaded and the Watch backlog since it has been applied
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  public List<RelationshipInfo> getParents(Resource resource, String resourceId) {
+    lock.readLock().lock();
+    try {
+      return graph.parentsOf(resource, resourceId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public List<RelationshipInfo> getChildren(Resource resource, String resourceId) {
+    lock.readLock().lock();
+    try {
+      return graph.childrenOf(resource, resourceId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public MirrorStatus status() {
+    int nodes;
+    long edges;
+    lock.readLock().lock();
+    try {
+      nodes = graph.nodeCount();
+      edges = graph.edgeCount();
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    // Lag is the age of the oldest Watch response received but not applied yet
+    WatchSignal oldest = pending.peek();
+    long lagMillis = oldest == null ? 0 : (System.nanoTime() - oldest.receivedAt()) / 1_000_000;
+
+    return MirrorStatus.builder()
+      .enabled(enabled)
+      .ready(ready)
+      .nodes(nodes)
+      .edges(edges)
+      .seenRevision(seenRevision == null ? null : seenRevision.getToken())
+      .appliedRevision(appliedRevision == null ? null : appliedRevision.getToken())
+      .appliedAt(appliedAt)
+      .lagMillis(lagMillis)
+      .pendingResponses(pending.size())
+      .updatesApplied(updatesApplied.get())
+      .reconnects(reconnects.get())
+      .build();
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        if (appliedRevision == null) {
+          bootstrap();
+        }
+        startWatch(appliedRevision);
+        consume();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        ready = false;
+        cancelWatch();
+        if (!running) {
+          return;
+        }
+        reconnects.incrementAndGet();
+
+        Status.Code code = Status.fromThrowable(e).getCode();
+        // The revision is outside SpiceDB's watch window, so only a fresh snapshot can catch up
+        if (code == Status.Code.INVALID_ARGUMENT || code == Status.Code.FAILED_PRECONDITION) {
+          appliedRevision = null;
+        }
+        log.warn("Relationship graph mirror disconnected ({}), retrying in {}ms", code, reconnectDelayMillis, e);
+        try {
+          Thread.sleep(reconnectDelayMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Load the PARENT edges at one exact revision; the Watch stream then resumes from it
+   */
+  private void bootstrap() {
+    ZedToken revision = schemaClient.readSchema(ReadSchemaRequest.newBuilder().build()).getReadAt();
+    RelationshipGraph snapshot = new RelationshipGraph();
+
+    for (Resource resource : MIRRORED_RESOURCES) {
+      Iterator<ExportBulkRelationshipsResponse> responses = permissionsClient.exportBulkRelationships(
+        ExportBulkRelationshipsRequest.newBuilder()
+          .setConsistency(Consistency.newBuilder().setAtExactSnapshot(revision))
+          .setOptionalRelationshipFilter(RelationshipFilter.newBuilder()
+            .setResourceType(resource.getWireName())
+            .setOptionalRelation(PARENT_RELATION))
+          .build());
+      while (responses.hasNext()) {
+        for (Relationship relationship : responses.next().getRelationshipsList()) {
+          apply(snapshot, RelationshipUpdate.Operation.OPERATION_TOUCH, relationship);
+        }
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      graph = snapshot;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    seenRevision = revision;
+    appliedRevision = revision;
+    appliedAt = Instant.now();
+    log.info("Relationship graph mirror loaded {} nodes and {} edges at {}",
+      snapshot.nodeCount(), snapshot.edgeCount(), revision.getToken());
+  }
+
+  private void startWatch(ZedToken from) {
+    // Each stream gets its own queue, so a cancelled stream cannot leak into the next one
+    BlockingQueue<WatchSignal> queue = new LinkedBlockingQueue<>();
+    pending = queue;
+
+    WatchRequest.Builder request = WatchRequest.newBuilder();
+    MIRRORED_RESOURCES.forEach(resource -> request.addOptionalObjectTypes(resource.getWireName()));
+    if (from != null) {
+      request.setOptionalStartCursor(from);
+    }
+
+    Context.CancellableContext context = Context.current().withCancellation();
+    watchContext = context;
+    context.run(() -> watchClient.watch(request.build(), new StreamObserver<>() {
+      @Override
+      public void onNext(WatchResponse response) {
+        seenRevision = response.getChangesThrough();
+        queue.add(new WatchSignal(response, null, System.nanoTime()));
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        queue.add(new WatchSignal(null, t, System.nanoTime()));
+      }
+
+      @Override
+      public void onCompleted() {
+        queue.add(new WatchSignal(null, Status.UNAVAILABLE
+          .withDescription("Watch stream completed").asRuntimeException(), System.nanoTime()));
+      }
+    }));
+  }
+
+  private void consume() throws InterruptedException {
+    BlockingQueue<WatchSignal> queue = pending;
+    long connectedAt = System.nanoTime();
+    while (running) {
+      if (!ready && queue.isEmpty() && System.nanoTime() - connectedAt >= TimeUnit.MILLISECONDS.toNanos(catchUpMillis)) {
+        ready = true;
+        log.info("Relationship graph mirror caught up at {}", appliedRevision.getToken());
+      }
+      WatchSignal signal = ready ? queue.take() : queue.poll(catchUpMillis, TimeUnit.MILLISECONDS);
+      if (signal == null) {
+        continue;
+      }
+      if (signal.error() != null) {
+        throw Status.fromThrowable(signal.error()).asRuntimeException();
+      }
+
+      WatchResponse response = signal.response();
+      lock.writeLock().lock();
+      try {
+        for (RelationshipUpdate update : response.getUpdatesList()) {
+          apply(graph, update.getOperation(), update.getRelationship());
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+      updatesApplied.addAndGet(response.getUpdatesCount());
+      appliedRevision = response.getChangesThrough();
+      appliedAt = Instant.now();
+    }
+  }
+
+  private static void apply(RelationshipGraph target, RelationshipUpdate.Operation operation,
+                            Relationship relationship) {
+    if (!PARENT_RELATION.equals(relationship.getRelation())) {
+      return;
+    }
+    Resource child = resourceOf(relationship.getResource().getObjectType());
+    Resource parent = resourceOf(relationship.getSubject().getObject().getObjectType());
+    if (child == null || parent == null) {
+      return;
+    }
+
+    String childId = relationship.getResource().getObjectId();
+    String parentId = relationship.getSubject().getObject().getObjectId();
+    switch (operation) {
+      case OPERATION_CREATE, OPERATION_TOUCH -> target.addParent(child, childId, parent, parentId);
+      case OPERATION_DELETE -> target.removeParent(child, childId, parent, parentId);
+      default -> { }
+    }
+  }
+
+  private static Resource resourceOf(String objectType) {
+    for (Resource resource : MIRRORED_RESOURCES) {
+      if (resource.getWireName().equals(objectType)) {
+        return resource;
+      }
+    }
+    return null;
+  }
+
+  private void cancelWatch() {
+    Context.CancellableContext context = watchContext;
+    if (context != null) {
+      context.cancel(null);
+    }
+  }
+
+  private record WatchSignal(WatchResponse response, Throwable error, long receivedAt) {
+  }
+}
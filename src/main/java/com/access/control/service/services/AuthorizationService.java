@@ -1,15 +1,29 @@
 package com.access.control.service.services;
 
 import com.access.control.service.builders.PermissionOptions;
+import com.access.control.service.cache.AncestorCache;
+import com.access.control.service.cache.PermissionDecisionCache;
+import com.access.control.service.cache.SubjectListCache;
 import com.access.control.service.builders.RelationshipOptions;
+import com.access.control.service.context.CallContext;
+import com.access.control.service.dto.AccessibleResource;
 import com.access.control.service.dto.RelationshipInfo;
+import com.access.control.service.dto.ResourceSubject;
+import com.access.control.service.enums.Direction;
+import com.access.control.service.enums.Permission;
 import com.access.control.service.enums.Relation;
 import com.access.control.service.enums.Resource;
 import com.access.control.service.enums.Subject;
+import com.access.control.service.interceptors.CircuitBreakerInterceptor;
 import com.authzed.api.v1.*;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.Value;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,9 +31,22 @@ import org.springframework.stereotype.Service;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static com.access.control.service.utils.FutureUtils.join;
+import static com.access.control.service.utils.FutureUtils.toCompletableFuture;
 import static com.access.control.service.utils.constants.*;
 
 @Service
@@ -27,30 +54,704 @@ import static com.access.control.service.utils.constants.*;
 @Slf4j
 public class AuthorizationService {
 
+  private static final Consistency MINIMIZE_LATENCY = Consistency.newBuilder().setMinimizeLatency(true).build();
+
   private final PermissionsServiceGrpc.PermissionsServiceBlockingStub permissionsClient;
+  private final PermissionsServiceGrpc.PermissionsServiceFutureStub permissionsFutureClient;
+  private final PermissionsServiceGrpc.PermissionsServiceStub permissionsAsyncClient;
+  private final PermissionDecisionCache decisionCache;
+  private final AncestorCache ancestorCache;
+  private final SubjectListCache subjectCache;
+  private final ExecutorService spicedbExecutor;
+  private final RelationshipWriteBatcher writeBatcher;
+  private final CallCoalescer callCoalescer;
+  private final CircuitBreakerInterceptor circuitBreaker;
+
+  @org.springframework.beans.factory.annotation.Value("${spicedb.bulk-check.chunk-size:100}")
+  private int bulkCheckChunkSize;
+
+  @org.springframework.beans.factory.annotation.Value("${spicedb.lookup-resources.read-ahead:128}")
+  private int lookupReadAhead;
 
   public void writeRelationship(RelationshipOptions options) {
+    RelationshipUpdate update = touchUpdate(options);
+
+    try {
+      ZedToken writtenAt = writeBatcher.isEnabled()
+        ? join(writeBatcher.submit(update))
+        : permissionsClient.writeRelationships(WriteRelationshipsRequest.newBuilder().addUpdates(update).build())
+          .getWrittenAt();
+      recordWrite(CallContext.current(), writtenAt);
+    } finally {
+      invalidateDecisions();
+      invalidateAncestors(options.getResource(), options.getResourceId(), options.getRelation());
+    }
+  }
+
+  /**
+   * Creates the relationships through one ImportBulkRelationships stream, which SpiceDB commits
+   * as a single transaction. Fails if any of them already exists.
+   */
+  public long importRelationships(List<RelationshipOptions> optionsList) {
+    CompletableFuture<Long> loaded = new CompletableFuture<>();
+    StreamObserver<ImportBulkRelationshipsRequest> requests =
+      permissionsAsyncClient.importBulkRelationships(new StreamObserver<>() {
+        @Override
+        public void onNext(ImportBulkRelationshipsResponse response) {
+          loaded.complete(response.getNumLoaded());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+          loaded.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+          loaded.complete(0L);
+        }
+      });
+
+    try {
+      ImportBulkRelationshipsRequest.Builder requestBuilder = ImportBulkRelationshipsRequest.newBuilder();
+      for (RelationshipOptions options : optionsList) {
+        requestBuilder.addRelationships(touchUpdate(options).getRelationship());
+      }
+      requests.onNext(requestBuilder.build());
+      requests.onCompleted();
+    } catch (RuntimeException e) {
+      requests.onError(e);
+      throw e;
+    }
+
+    try {
+      return join(loaded);
+    } finally {
+      invalidateDecisions();
+      optionsList.forEach(options ->
+        invalidateAncestors(options.getResource(), options.getResourceId(), options.getRelation()));
+    }
+  }
+
+  /**
+   * Unified check permission method with optional caveat context
+   */
+  public boolean checkPermission(PermissionOptions options) {
+    if (!isCacheable(options)) {
+      return checkPermissionRemote(options);
+    }
+
+    Boolean cached = cachedDecision(options);
+    if (cached != null) {
+      return cached;
+    }
+
+    long generation = decisionCache.generation();
+    boolean allowed = checkPermissionRemote(options);
+    decisionCache.put(options, allowed, generation);
+    return allowed;
+  }
+
+  private boolean checkPermissionRemote(PermissionOptions options) {
+    return callCoalescer.execute("CheckPermission", options,
+      () -> isAllowed(permissionsClient.checkPermission(checkRequest(options))));
+  }
+
+  private CompletableFuture<Boolean> checkPermissionRemoteAsync(PermissionOptions options) {
+    return callCoalescer.executeAsync("CheckPermission", options,
+      () -> toCompletableFuture(permissionsFutureClient.checkPermission(checkRequest(options)))
+        .thenApply(AuthorizationService::isAllowed));
+  }
+
+  /**
+   * Checks many permissions with CheckBulkPermissions, answering cached decisions locally.
+   * Results are returned in the order of the given options.
+   */
+  public List<Boolean> checkBulkPermissions(List<PermissionOptions> optionsList) {
+    return checkBulkPermissions(optionsList, null);
+  }
+
+  /**
+   * As above, with each chunk's call holding one of the caller's permits, so the chunks count
+   * against the same concurrency limit as the caller's other SpiceDB calls
+   */
+  public List<Boolean> checkBulkPermissions(List<PermissionOptions> optionsList, Semaphore permits) {
+    Boolean[] results = new Boolean[optionsList.size()];
+    List<Integer> pending = new ArrayList<>();
+
+    for (int i = 0; i < optionsList.size(); i++) {
+      PermissionOptions options = optionsList.get(i);
+      Boolean cached = isCacheable(options) ? cachedDecision(options) : null;
+      if (cached != null) {
+        results[i] = cached;
+      } else {
+        pending.add(i);
+      }
+    }
+
+    if (pending.isEmpty()) {
+      return Arrays.asList(results);
+    }
+
+    long generation = decisionCache.generation();
+    List<List<Integer>> chunks = new ArrayList<>();
+    for (int from = 0; from < pending.size(); from += bulkCheckChunkSize) {
+      chunks.add(pending.subList(from, Math.min(from + bulkCheckChunkSize, pending.size())));
+    }
+
+    if (chunks.size() == 1) {
+      checkBulkChunk(optionsList, chunks.get(0), results, permits);
+    } else {
+      join(CompletableFuture.allOf(chunks.stream()
+        .map(chunk -> CompletableFuture.runAsync(
+          () -> checkBulkChunk(optionsList, chunk, results, permits), spicedbExecutor))
+        .toArray(CompletableFuture[]::new)));
+    }
+
+    for (int i : pending) {
+      PermissionOptions options = optionsList.get(i);
+      if (isCacheable(options)) {
+        decisionCache.put(options, results[i], generation);
+      }
+    }
+    return Arrays.asList(results);
+  }
+
+  private void checkBulkChunk(List<PermissionOptions> optionsList, List<Integer> chunk,
+                              Boolean[] results, Semaphore permits) {
+    if (permits == null) {
+      checkBulkChunk(optionsList, chunk, results);
+      return;
+    }
+    permits.acquireUninterruptibly();
+    try {
+      checkBulkChunk(optionsList, chunk, results);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void checkBulkChunk(List<PermissionOptions> optionsList, List<Integer> chunk,
+                              Boolean[] results) {
+    CheckBulkPermissionsRequest.Builder requestBuilder = CheckBulkPermissionsRequest.newBuilder()
+      .setConsistency(consistency());
+    PermissionOptions previous = null;
+    SubjectReference subject = null;
+    for (int i : chunk) {
+      PermissionOptions options = optionsList.get(i);
+      // Items usually share one subject, so its immutable reference is built once
+      if (previous == null || previous.getSubject() != options.getSubject()
+        || !Objects.equals(previous.getSubjectId(), options.getSubjectId())) {
+        subject = subjectReference(options);
+      }
+      previous = options;
+
+      CheckBulkPermissionsRequestItem.Builder itemBuilder = CheckBulkPermissionsRequestItem.newBuilder()
+        .setResource(objectReference(options))
+        .setPermission(options.getPermission().getWireName())
+        .setSubject(subject);
+      if (options.getPassword() != null) {
+        itemBuilder.setContext(suppliedPasswordContext(options.getPassword()));
+      }
+      requestBuilder.addItems(itemBuilder.build());
+    }
+
+    CheckBulkPermissionsResponse response =
+      permissionsClient.checkBulkPermissions(requestBuilder.build());
+
+    // Pairs come back in request order
+    for (int j = 0; j < chunk.size(); j++) {
+      CheckBulkPermissionsPair pair = response.getPairs(j);
+      int index = chunk.get(j);
+      if (pair.hasError()) {
+        // Fail closed on per-item errors
+        log.warn("Bulk check item {} failed: {}", optionsList.get(index), pair.getError().getMessage());
+        results[index] = false;
+      } else {
+        results[index] = pair.getItem().getPermissionship() ==
+          CheckPermissionResponse.Permissionship.PERMISSIONSHIP_HAS_PERMISSION;
+      }
+    }
+  }
+
+  public List<RelationshipInfo> getOutgoingRelations(Resource resource, String resourceId,
+                                                     Relation relation) {
+    return readAllRelationships(Direction.OUTGOING, resource, resourceId, relation);
+  }
+
+  /**
+   * Get all relationships where this resource is the target (has relations pointing IN)
+   * Example: cohort:xyz has parent -> schema:abc (schema is the target)
+   */
+  public List<RelationshipInfo> getIncomingRelations(Resource resource, String resourceId,
+                                                     Relation relation) {
+    return readAllRelationships(Direction.INCOMING, resource, resourceId, relation);
+  }
+
+  /**
+   * Concurrent reads of the same edges, e.g. a hot folder's PARENT edges, share one call
+   */
+  private List<RelationshipInfo> readAllRelationships(Direction direction, Resource resource, String resourceId,
+                                                      Relation relation) {
+    return callCoalescer.execute("ReadRelationships", new RelationsKey(direction, resource, resourceId, relation),
+      () -> {
+        List<RelationshipInfo> relations = new ArrayList<>();
+        readRelationships(direction, resource, resourceId, relation, null, null, relations::add);
+        return List.copyOf(relations);
+      });
+  }
+
+  /**
+   * Streams relationships to the consumer as they arrive, without materializing them.
+   * With a limit, reads at most one page and returns the cursor to continue from, or null
+   * once the relationships are exhausted.
+   */
+  public String readRelationships(Direction direction, Resource resource, String resourceId,
+                                  Relation relation, Integer limit, String cursor,
+                                  Consumer<RelationshipInfo> consumer) {
+    ReadRelationshipsRequest.Builder requestBuilder = ReadRelationshipsRequest.newBuilder()
+      .setConsistency(consistency())
+      .setRelationshipFilter(relationshipFilter(direction, resource, resourceId, relation));
+    if (limit != null) {
+      requestBuilder.setOptionalLimit(limit);
+    }
+    if (cursor != null) {
+      requestBuilder.setOptionalCursor(Cursor.newBuilder().setToken(cursor).build());
+    }
+
+    // Cancel the stream if the consumer stops early, e.g. when the client goes away
+    Context.CancellableContext context = Context.current().withCancellation();
+    Context previous = context.attach();
+    try {
+      Iterator<ReadRelationshipsResponse> responses =
+        permissionsClient.readRelationships(requestBuilder.build());
+
+      int count = 0;
+      Cursor afterResultCursor = null;
+      while (responses.hasNext()) {
+        ReadRelationshipsResponse response = responses.next();
+        consumer.accept(toRelationshipInfo(response.getRelationship()));
+        afterResultCursor = response.getAfterResultCursor();
+        count++;
+      }
+
+      return limit != null && count == limit && afterResultCursor != null
+        ? afterResultCursor.getToken()
+        : null;
+    } finally {
+      context.detach(previous);
+      context.cancel(null);
+    }
+  }
+
+  private static RelationshipFilter relationshipFilter(Direction direction, Resource resource,
+                                                       String resourceId, Relation relation) {
+    if (direction == Direction.OUTGOING) {
+      return RelationshipFilter.newBuilder()
+        .setResourceType(resource.getWireName())
+        .setOptionalResourceId(resourceId)
+        .setOptionalRelation(relation.getWireName())
+        .build();
+    }
+    return RelationshipFilter.newBuilder()
+      .setOptionalRelation(relation.getWireName())
+      .setOptionalSubjectFilter(SubjectFilter.newBuilder()
+        .setSubjectType(resource.getWireName())
+        .setOptionalSubjectId(resourceId)
+        .build())
+      .build();
+  }
+
+  // Package-private for the benchmarks module
+  static RelationshipInfo toRelationshipInfo(Relationship rel) {
+    ObjectReference resource = rel.getResource();
+    ObjectReference subject = rel.getSubject().getObject();
+    return RelationshipInfo.builder()
+      .resource(Resource.fromWireName(resource.getObjectType()))
+      .resourceId(resource.getObjectId())
+      .relation(Relation.fromWireName(rel.getRelation()))
+      .toResource(Resource.fromWireName(subject.getObjectType()))
+      .toResourceId(subject.getObjectId())
+      .build();
+  }
+
+  public void deleteRelationship(Resource resource, String resourceId) {
+    DeleteRelationshipsRequest request = deleteRequest(resource, resourceId);
+
+    try {
+      recordWrite(CallContext.current(), permissionsClient.deleteRelationships(request).getDeletedAt());
+    } finally {
+      invalidateDecisions();
+      ancestorCache.invalidate(resource, resourceId);
+    }
+  }
+
+  /**
+   * Deletes every relationship of the resource in DeleteRelationships calls of at most chunkSize
+   * relationships, so no single call holds a large transaction. Returns how many were deleted.
+   * Cached decisions are left to the caller, which drops them with invalidateDecisions once for
+   * a whole batch of deletes.
+   */
+  public long deleteRelationshipsInChunks(Resource resource, String resourceId, int chunkSize) {
+    DeleteRelationshipsRequest request = deleteRequest(resource, resourceId).toBuilder()
+      .setOptionalLimit(chunkSize)
+      .setOptionalAllowPartialDeletions(true)
+      .build();
+
+    long deleted = 0;
+    try {
+      DeleteRelationshipsResponse response;
+      do {
+        response = permissionsClient.deleteRelationships(request);
+        deleted += response.getRelationshipsDeletedCount();
+      } while (response.getDeletionProgress() == DeleteRelationshipsResponse.DeletionProgress.DELETION_PROGRESS_PARTIAL);
+      recordWrite(CallContext.current(), response.getDeletedAt());
+    } finally {
+      ancestorCache.invalidate(resource, resourceId);
+    }
+    return deleted;
+  }
+
+  /**
+   * Deletes the PARENT edges in WriteRelationships calls of at most chunkSize updates. Like
+   * deleteRelationshipsInChunks, leaves cached decisions to the caller.
+   */
+  public void deleteParentEdges(List<RelationshipInfo> edges, int chunkSize) {
+    try {
+      for (int from = 0; from < edges.size(); from += chunkSize) {
+        WriteRelationshipsRequest.Builder request = WriteRelationshipsRequest.newBuilder();
+        for (RelationshipInfo edge : edges.subList(from, Math.min(from + chunkSize, edges.size()))) {
+          request.addUpdates(deleteUpdate(edge.getResource(), edge.getResourceId(), Relation.PARENT,
+            Subject.fromWireName(edge.getToResource().getWireName()), edge.getToResourceId()));
+        }
+        recordWrite(CallContext.current(), permissionsClient.writeRelationships(request.build()).getWrittenAt());
+      }
+    } finally {
+      edges.forEach(edge -> ancestorCache.invalidate(edge.getResource(), edge.getResourceId()));
+    }
+  }
+
+  public void deleteRelationship(Resource resource, String resourceId, Relation relation,
+                                 Subject subject, String subjectId) {
+    try {
+      // Tenant subjects carry no subject relation, so the filter names exactly one relationship
+      ZedToken deletedAt = writeBatcher.isEnabled() && subject == Subject.TENANT
+        ? join(writeBatcher.submit(deleteUpdate(resource, resourceId, relation, subject, subjectId)))
+        : permissionsClient.deleteRelationships(deleteRequest(resource, resourceId, relation, subject, subjectId))
+          .getDeletedAt();
+      recordWrite(CallContext.current(), deletedAt);
+    } finally {
+      invalidateDecisions();
+      invalidateAncestors(resource, resourceId, relation);
+    }
+  }
+
+
+  public List<String> expandPermissionTree(
+    Resource resource,
+    String resourceId,
+    Relation relation
+  ) {
+    List<String> memberList = new ArrayList<>();
+    streamSubjects(resource, resourceId, relation, memberList::add);
+    return memberList;
+  }
+
+  /**
+   * Streams every tenant holding the relation to the consumer as LookupSubjects yields it
+   */
+  public void streamSubjects(Resource resource, String resourceId, Relation relation,
+                             Consumer<String> consumer) {
+    lookupSubjects(resource, resourceId, relation.getWireName(), resolved -> {
+      consumer.accept(resolved.getSubjectObjectId());
+      return true;
+    });
+  }
+
+  /**
+   * Streams every tenant holding the permission, directly or through groups and parent folders.
+   * Subjects reach the consumer as they are read. Lists of up to the cacheable size are also kept
+   * in the subject cache until the next write, so repeated lookups on the same hot resource are
+   * served without calling SpiceDB.
+   */
+  public void streamSubjects(Resource resource, String resourceId, Permission permission,
+                             Consumer<ResourceSubject> consumer) {
+    if (!subjectCache.isEnabled() || CallContext.currentZedToken() != null) {
+      lookupSubjects(resource, resourceId, permission.getWireName(), resolved -> {
+        consumer.accept(toResourceSubject(resolved));
+        return true;
+      });
+      return;
+    }
+
+    List<ResourceSubject> cached = subjectCache.get(resource, resourceId, permission);
+    if (cached != null) {
+      cached.forEach(consumer);
+      return;
+    }
+
+    // Concurrent lookups of the same resource share one call. Its caller streams as it reads,
+    // the others are handed the complete list
+    long generation = subjectCache.generation();
+    boolean[] streamed = {false};
+    RuntimeException[] consumerFailure = {null};
+    Optional<List<ResourceSubject>> subjects = callCoalescer.execute("LookupSubjects",
+      new SubjectsKey(resource, resourceId, permission), () -> {
+        streamed[0] = true;
+        return streamSubjectList(resource, resourceId, permission, subjectCache.getMaxListSize(),
+          consumer, consumerFailure);
+      });
+    if (consumerFailure[0] != null) {
+      throw consumerFailure[0];
+    }
+    if (streamed[0]) {
+      subjects.ifPresent(list -> subjectCache.put(resource, resourceId, permission, list, generation));
+    } else if (subjects.isPresent()) {
+      subjects.get().forEach(consumer);
+    } else {
+      // Too long to share, or its caller went away, so this one is read on its own
+      lookupSubjects(resource, resourceId, permission.getWireName(), resolved -> {
+        consumer.accept(toResourceSubject(resolved));
+        return true;
+      });
+    }
+  }
+
+  /**
+   * Streams the subjects to the consumer and returns a copy of them, or empty when there are
+   * more than maxSize or the consumer failed. The consumer's failure is left in consumerFailure
+   * rather than thrown, so callers sharing the call never see it.
+   */
+  private Optional<List<ResourceSubject>> streamSubjectList(Resource resource, String resourceId,
+                                                            Permission permission, int maxSize,
+                                                            Consumer<ResourceSubject> consumer,
+                                                            RuntimeException[] consumerFailure) {
+    List<ResourceSubject> subjects = new ArrayList<>();
+    boolean[] overflow = {false};
+    lookupSubjects(resource, resourceId, permission.getWireName(), resolved -> {
+      ResourceSubject subject = toResourceSubject(resolved);
+      try {
+        consumer.accept(subject);
+      } catch (RuntimeException e) {
+        consumerFailure[0] = e;
+        return false;
+      }
+      if (!overflow[0] && subjects.size() < maxSize) {
+        subjects.add(subject);
+      } else if (!overflow[0]) {
+        overflow[0] = true;
+        subjects.clear();
+      }
+      return true;
+    });
+    return consumerFailure[0] == null && !overflow[0] ? Optional.of(List.copyOf(subjects)) : Optional.empty();
+  }
+
+  private static ResourceSubject toResourceSubject(ResolvedSubject resolved) {
+    return ResourceSubject.builder()
+      .subject(Subject.TENANT)
+      .subjectId(resolved.getSubjectObjectId())
+      .conditional(resolved.getPermissionship()
+        == LookupPermissionship.LOOKUP_PERMISSIONSHIP_CONDITIONAL_PERMISSION)
+      .build();
+  }
+
+  /**
+   * Streams the resolved subjects until the consumer returns false
+   */
+  private void lookupSubjects(Resource resource, String resourceId, String permission,
+                              Predicate<ResolvedSubject> consumer) {
+    LookupSubjectsRequest request =
+      LookupSubjectsRequest.newBuilder()
+        .setResource(ObjectReference.newBuilder()
+          .setObjectType(resource.getWireName())
+          .setObjectId(resourceId)
+          .build())
+        .setPermission(permission)
+        .setSubjectObjectType(Subject.TENANT.getWireName())
+        .setConsistency(consistency())
+        .build();
+
+    // Cancel the stream if the consumer stops early, e.g. when the client goes away
+    Context.CancellableContext context = Context.current().withCancellation();
+    Context previous = context.attach();
+    try {
+      Iterator<LookupSubjectsResponse> responses =
+        permissionsClient.lookupSubjects(request);
+
+      while (responses.hasNext()) {
+        if (!consumer.test(responses.next().getSubject())) {
+          break;
+        }
+      }
+    } finally {
+      context.detach(previous);
+      context.cancel(null);
+    }
+  }
+
+  /**
+   * Streams one page of the resources the subject holds the permission on, as LookupResources
+   * yields them. The stream is read up to lookupReadAhead responses ahead of the consumer, so
+   * SpiceDB keeps sending while the previous results are written out, but a slow consumer never
+   * buffers more than that. Returns the cursor to continue from, or null once exhausted.
+   */
+  public String lookupResources(Resource resource, Permission permission, Subject subject, String subjectId,
+                                int limit, String cursor, Consumer<AccessibleResource> consumer) {
+    LookupResourcesRequest.Builder requestBuilder = LookupResourcesRequest.newBuilder()
+      .setConsistency(consistency())
+      .setResourceObjectType(resource.getWireName())
+      .setPermission(permission.getWireName())
+      .setSubject(SubjectReference.newBuilder()
+        .setObject(ObjectReference.newBuilder()
+          .setObjectType(subject.getWireName())
+          .setObjectId(subjectId)
+          .build())
+        .build())
+      .setOptionalLimit(limit);
+    if (cursor != null) {
+      requestBuilder.setOptionalCursor(Cursor.newBuilder().setToken(cursor).build());
+    }
+
+    // At most lookupReadAhead responses are requested and not yet taken, plus the final signal
+    BlockingQueue<LookupSignal> signals = new LinkedBlockingQueue<>();
+    AtomicReference<ClientCallStreamObserver<LookupResourcesRequest>> call = new AtomicReference<>();
+
+    // Cancel the stream if the consumer stops early, e.g. when the client goes away
+    Context.CancellableContext context = Context.current().withCancellation();
+    Context previous = context.attach();
+    try {
+      permissionsAsyncClient.lookupResources(requestBuilder.build(),
+        new ClientResponseObserver<LookupResourcesRequest, LookupResourcesResponse>() {
+          @Override
+          public void beforeStart(ClientCallStreamObserver<LookupResourcesRequest> requestStream) {
+            requestStream.disableAutoRequestWithInitial(lookupReadAhead);
+            call.set(requestStream);
+          }
+
+          @Override
+          public void onNext(LookupResourcesResponse response) {
+            signals.add(new LookupSignal(response, null));
+          }
+
+          @Override
+          public void onError(Throwable t) {
+            signals.add(new LookupSignal(null, t));
+          }
+
+          @Override
+          public void onCompleted() {
+            signals.add(new LookupSignal(null, null));
+          }
+        });
+
+      int count = 0;
+      Cursor afterResultCursor = null;
+      while (true) {
+        LookupSignal signal = signals.take();
+        if (signal.error() != null) {
+          throw Status.fromThrowable(signal.error()).asRuntimeException();
+        }
+        if (signal.response() == null) {
+          break;
+        }
+        LookupResourcesResponse response = signal.response();
+        consumer.accept(AccessibleResource.builder()
+          .resource(resource)
+          .resourceId(response.getResourceObjectId())
+          .conditional(response.getPermissionship()
+            == LookupPermissionship.LOOKUP_PERMISSIONSHIP_CONDITIONAL_PERMISSION)
+          .build());
+        afterResultCursor = response.getAfterResultCursor();
+        count++;
+        call.get().request(1);
+      }
+
+      return count == limit && afterResultCursor != null ? afterResultCursor.getToken() : null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Status.CANCELLED.withCause(e).asRuntimeException();
+    } finally {
+      context.detach(previous);
+      context.cancel(null);
+    }
+  }
+
+  /**
+   * Non-blocking counterpart of checkPermission, served from the decision cache when possible
+   */
+  public CompletableFuture<Boolean> checkPermissionAsync(PermissionOptions options) {
+    if (!isCacheable(options)) {
+      return checkPermissionRemoteAsync(options);
+    }
+
+    Boolean cached = cachedDecision(options);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    long generation = decisionCache.generation();
+    return checkPermissionRemoteAsync(options)
+      .thenApply(allowed -> {
+        decisionCache.put(options, allowed, generation);
+        return allowed;
+      });
+  }
+
+  public CompletableFuture<Void> writeRelationshipAsync(RelationshipOptions options) {
+    RelationshipUpdate update = touchUpdate(options);
+    CallContext context = CallContext.current();
+    CompletableFuture<ZedToken> write = writeBatcher.isEnabled()
+      ? writeBatcher.submit(update)
+      : toCompletableFuture(permissionsFutureClient.writeRelationships(
+          WriteRelationshipsRequest.newBuilder().addUpdates(update).build()))
+        .thenApply(WriteRelationshipsResponse::getWrittenAt);
+    return write
+      .whenComplete((writtenAt, error) -> {
+        invalidateDecisions();
+        invalidateAncestors(options.getResource(), options.getResourceId(), options.getRelation());
+      })
+      .thenAccept(writtenAt -> recordWrite(context, writtenAt));
+  }
+
+  public CompletableFuture<Void> deleteRelationshipAsync(Resource resource, String resourceId, Relation relation,
+                                                         Subject subject, String subjectId) {
+    CallContext context = CallContext.current();
+    CompletableFuture<ZedToken> delete = writeBatcher.isEnabled() && subject == Subject.TENANT
+      ? writeBatcher.submit(deleteUpdate(resource, resourceId, relation, subject, subjectId))
+      : toCompletableFuture(permissionsFutureClient.deleteRelationships(
+          deleteRequest(resource, resourceId, relation, subject, subjectId)))
+        .thenApply(DeleteRelationshipsResponse::getDeletedAt);
+    return delete
+      .whenComplete((deletedAt, error) -> {
+        invalidateDecisions();
+        invalidateAncestors(resource, resourceId, relation);
+      })
+      .thenAccept(deletedAt -> recordWrite(context, deletedAt));
+  }
+
+  private static RelationshipUpdate touchUpdate(RelationshipOptions options) {
     SubjectReference.Builder subjectBuilder =
       SubjectReference.newBuilder()
         .setObject(ObjectReference.newBuilder()
-          .setObjectType(options.getSubject().name().toLowerCase())
+          .setObjectType(options.getSubject().getWireName())
           .setObjectId(options.getSubjectId())
           .build());
 
     // Optional sub relation, sets userset_relation
     if (options.getSubRelation() != null) {
       subjectBuilder.setOptionalRelation(
-        options.getSubRelation().name().toLowerCase()
+        options.getSubRelation().getWireName()
       );
     }
 
     Relationship.Builder relationshipBuilder =
       Relationship.newBuilder()
         .setResource(ObjectReference.newBuilder()
-          .setObjectType(options.getResource().name().toLowerCase())
+          .setObjectType(options.getResource().getWireName())
           .setObjectId(options.getResourceId())
           .build())
-        .setRelation(options.getRelation().name().toLowerCase())
+        .setRelation(options.getRelation().getWireName())
         .setSubject(subjectBuilder.build());
 
     // Add caveat if password is provided
@@ -72,170 +773,152 @@ public class AuthorizationService {
       relationshipBuilder.setOptionalExpiresAt(expiration);
     }
 
-    WriteRelationshipsRequest request = WriteRelationshipsRequest.newBuilder()
-      .addUpdates(RelationshipUpdate.newBuilder()
-        .setOperation(RelationshipUpdate.Operation.OPERATION_TOUCH)
-        .setRelationship(relationshipBuilder.build())
-        .build())
+    return RelationshipUpdate.newBuilder()
+      .setOperation(RelationshipUpdate.Operation.OPERATION_TOUCH)
+      .setRelationship(relationshipBuilder.build())
       .build();
+  }
 
-    permissionsClient.writeRelationships(request);
-
+  private static RelationshipUpdate deleteUpdate(Resource resource, String resourceId, Relation relation,
+                                                 Subject subject, String subjectId) {
+    return RelationshipUpdate.newBuilder()
+      .setOperation(RelationshipUpdate.Operation.OPERATION_DELETE)
+      .setRelationship(Relationship.newBuilder()
+        .setResource(ObjectReference.newBuilder()
+          .setObjectType(resource.getWireName())
+          .setObjectId(resourceId)
+          .build())
+        .setRelation(relation.getWireName())
+        .setSubject(SubjectReference.newBuilder()
+          .setObject(ObjectReference.newBuilder()
+            .setObjectType(subject.getWireName())
+            .setObjectId(subjectId)
+            .build())
+          .build())
+        .build())
+      .build();
   }
 
-  /**
-   * Unified check permission method with optional caveat context
-   */
-  public boolean checkPermission(PermissionOptions options) {
+  // Package-private for the benchmarks module
+  static CheckPermissionRequest checkRequest(PermissionOptions options) {
     CheckPermissionRequest.Builder requestBuilder = CheckPermissionRequest.newBuilder()
-      .setResource(ObjectReference.newBuilder()
-        .setObjectType(options.getResource().name().toLowerCase())
-        .setObjectId(options.getResourceId())
-        .build())
-      .setPermission(options.getPermission().name().toLowerCase())
-      .setSubject(SubjectReference.newBuilder()
-        .setObject(ObjectReference.newBuilder()
-          .setObjectType(options.getSubject().name().toLowerCase())
-          .setObjectId(options.getSubjectId())
-          .build())
-        .build());
+      .setConsistency(consistency())
+      .setResource(objectReference(options))
+      .setPermission(options.getPermission().getWireName())
+      .setSubject(subjectReference(options));
 
     // Add context if password is provided
     if (options.getPassword() != null) {
-      Struct.Builder contextBuilder = Struct.newBuilder();
-      contextBuilder.putFields(CAVEAT_SUPPLIED_KEY,
-        Value.newBuilder().setStringValue(options.getPassword()).build());
-      requestBuilder.setContext(contextBuilder.build());
+      requestBuilder.setContext(suppliedPasswordContext(options.getPassword()));
     }
-
-    CheckPermissionResponse response = permissionsClient.checkPermission(requestBuilder.build());
-    return response.getPermissionship() ==
-      CheckPermissionResponse.Permissionship.PERMISSIONSHIP_HAS_PERMISSION;
+    return requestBuilder.build();
   }
 
-  public List<RelationshipInfo> getOutgoingRelations(Resource resource, String resourceId,
-                                                     Relation relation) {
-    ReadRelationshipsRequest request = ReadRelationshipsRequest.newBuilder()
-      .setRelationshipFilter(RelationshipFilter.newBuilder()
-        .setResourceType(resource.name().toLowerCase())
-        .setOptionalResourceId(resourceId)
-        .setOptionalRelation(relation.name().toLowerCase())
-        .build())
-      .build();
-
-    List<RelationshipInfo> relations = new ArrayList<>();
-    Iterator<ReadRelationshipsResponse> responses = permissionsClient.readRelationships(request);
-
-    while (responses.hasNext()) {
-      ReadRelationshipsResponse response = responses.next();
-      Relationship rel = response.getRelationship();
-
-      relations.add(RelationshipInfo.builder()
-        .resource(Resource.valueOf(rel.getResource().getObjectType().toUpperCase()))
-        .resourceId(rel.getResource().getObjectId())
-        .relation(Relation.valueOf(rel.getRelation().toUpperCase()))
-        .toResource(Resource.valueOf(rel.getSubject().getObject().getObjectType().toUpperCase()))
-        .toResourceId(rel.getSubject().getObject().getObjectId())
-        .build());
-    }
-
-    return relations;
+  /**
+   * At least as fresh as the request's ZedToken when the client sent one or wrote earlier in the
+   * request, otherwise minimize_latency so SpiceDB can answer from its caches
+   */
+  private static Consistency consistency() {
+    String zedToken = CallContext.currentZedToken();
+    return zedToken == null
+      ? MINIMIZE_LATENCY
+      : Consistency.newBuilder().setAtLeastAsFresh(ZedToken.newBuilder().setToken(zedToken)).build();
   }
 
   /**
-   * Get all relationships where this resource is the target (has relations pointing IN)
-   * Example: cohort:xyz has parent -> schema:abc (schema is the target)
+   * While the circuit breaker fails calls fast, the last known decision is served instead
    */
-  public List<RelationshipInfo> getIncomingRelations(Resource resource, String resourceId,
-                                                     Relation relation) {
-    ReadRelationshipsRequest request = ReadRelationshipsRequest.newBuilder()
-      .setRelationshipFilter(RelationshipFilter.newBuilder()
-        .setOptionalRelation(relation.name().toLowerCase())
-        .setOptionalSubjectFilter(SubjectFilter.newBuilder()
-          .setSubjectType(resource.name().toLowerCase())
-          .setOptionalSubjectId(resourceId)
-          .build())
-        .build())
-      .build();
+  private Boolean cachedDecision(PermissionOptions options) {
+    Boolean cached = decisionCache.get(options);
+    return cached == null && circuitBreaker.isOpen() ? decisionCache.getStale(options) : cached;
+  }
 
-    List<RelationshipInfo> relations = new ArrayList<>();
-    Iterator<ReadRelationshipsResponse> responses = permissionsClient.readRelationships(request);
+  /**
+   * Decisions are cached without a revision, so requests pinned to a ZedToken bypass the cache
+   */
+  private boolean isCacheable(PermissionOptions options) {
+    return decisionCache.isCacheable(options) && CallContext.currentZedToken() == null;
+  }
 
-    while (responses.hasNext()) {
-      ReadRelationshipsResponse response = responses.next();
-      Relationship rel = response.getRelationship();
+  /**
+   * Any write can change who holds a permission anywhere below the written resource. Public for
+   * bulk deletes, which call it once per batch.
+   */
+  public void invalidateDecisions() {
+    decisionCache.invalidateAll();
+    subjectCache.invalidateAll();
+    callCoalescer.invalidateAll();
+  }
 
-      relations.add(RelationshipInfo.builder()
-        .resource(Resource.valueOf(rel.getResource().getObjectType().toUpperCase()))
-        .resourceId(rel.getResource().getObjectId())
-        .relation(Relation.valueOf(rel.getRelation().toUpperCase()))
-        .toResource(Resource.valueOf(rel.getSubject().getObject().getObjectType().toUpperCase()))
-        .toResourceId(rel.getSubject().getObject().getObjectId())
-        .build());
+  private void invalidateAncestors(Resource resource, String resourceId, Relation relation) {
+    if (relation == Relation.PARENT) {
+      ancestorCache.invalidate(resource, resourceId);
     }
+  }
 
-    return relations;
+  private static void recordWrite(CallContext context, ZedToken writtenAt) {
+    if (context != null) {
+      context.recordWrite(writtenAt.getToken());
+    }
   }
 
-  public void deleteRelationship(Resource resource, String resourceId) {
-    DeleteRelationshipsRequest request =
-      DeleteRelationshipsRequest.newBuilder()
-        .setRelationshipFilter(
-          RelationshipFilter.newBuilder()
-            .setResourceType(resource.name().toLowerCase())
-            .setOptionalResourceId(resourceId)
-            .build()
-        )
-        .build();
+  private static boolean isAllowed(CheckPermissionResponse response) {
+    return response.getPermissionship() ==
+      CheckPermissionResponse.Permissionship.PERMISSIONSHIP_HAS_PERMISSION;
+  }
 
-    permissionsClient.deleteRelationships(request);
+  private static DeleteRelationshipsRequest deleteRequest(Resource resource, String resourceId) {
+    return DeleteRelationshipsRequest.newBuilder()
+      .setRelationshipFilter(
+        RelationshipFilter.newBuilder()
+          .setResourceType(resource.getWireName())
+          .setOptionalResourceId(resourceId)
+          .build()
+      )
+      .build();
   }
 
-  public void deleteRelationship(Resource resource, String resourceId, Relation relation,
-                                 Subject subject, String subjectId) {
-    DeleteRelationshipsRequest request = DeleteRelationshipsRequest.newBuilder()
+  private static DeleteRelationshipsRequest deleteRequest(Resource resource, String resourceId, Relation relation,
+                                                          Subject subject, String subjectId) {
+    return DeleteRelationshipsRequest.newBuilder()
       .setRelationshipFilter(RelationshipFilter.newBuilder()
-        .setResourceType(resource.name().toLowerCase())
+        .setResourceType(resource.getWireName())
         .setOptionalResourceId(resourceId)
-        .setOptionalRelation(relation.name().toLowerCase())
+        .setOptionalRelation(relation.getWireName())
         .setOptionalSubjectFilter(SubjectFilter.newBuilder()
-          .setSubjectType(subject.name().toLowerCase())
+          .setSubjectType(subject.getWireName())
           .setOptionalSubjectId(subjectId)
           .build())
         .build())
       .build();
-
-    permissionsClient.deleteRelationships(request);
   }
 
+  /**
+   * References are built per call: their only constant part is the type name, which is already
+   * a precomputed wire name, and an immutable message cannot be completed with the object id
+   * without copying it. Bulk checks reuse the subject reference across items instead.
+   */
+  private static ObjectReference objectReference(PermissionOptions options) {
+    return ObjectReference.newBuilder()
+      .setObjectType(options.getResource().getWireName())
+      .setObjectId(options.getResourceId())
+      .build();
+  }
 
-  public List<String> expandPermissionTree(
-    Resource resource,
-    String resourceId,
-    Relation relation
-  ) {
-    LookupSubjectsRequest request =
-      LookupSubjectsRequest.newBuilder()
-        .setResource(ObjectReference.newBuilder()
-          .setObjectType(resource.name().toLowerCase())
-          .setObjectId(resourceId)
-          .build())
-        .setPermission(relation.name().toLowerCase())
-        .setSubjectObjectType(Subject.TENANT.name().toLowerCase())
-        .build();
-
-    Iterator<LookupSubjectsResponse> responses =
-      permissionsClient.lookupSubjects(request);
-
-    List<String> memberList = new ArrayList<>();
-    while (responses.hasNext()) {
-      LookupSubjectsResponse resp = responses.next();
-      memberList.add(resp.getSubject().getSubjectObjectId());
-    }
-
-    return memberList;
+  private static SubjectReference subjectReference(PermissionOptions options) {
+    return SubjectReference.newBuilder()
+      .setObject(ObjectReference.newBuilder()
+        .setObjectType(options.getSubject().getWireName())
+        .setObjectId(options.getSubjectId())
+        .build())
+      .build();
   }
 
+  private static Struct suppliedPasswordContext(String password) {
+    return Struct.newBuilder()
+      .putFields(CAVEAT_SUPPLIED_KEY, Value.newBuilder().setStringValue(password).build())
+      .build();
+  }
 
   private static Timestamp getTimestamp(RelationshipOptions options) {
     Instant expirationTime = Instant.now().plus(options.getDaysFromNow(), ChronoUnit.DAYS);
@@ -245,4 +928,15 @@ public class AuthorizationService {
       .build();
   }
 
+  private record RelationsKey(Direction direction, Resource resource, String resourceId, Relation relation) {
+  }
+
+  private record SubjectsKey(Resource resource, String resourceId, Permission permission) {
+  }
+
+  /**
+   * A LookupResources response, or the end of the stream: completed when both are null
+   */
+  private record LookupSignal(LookupResourcesResponse response, Throwable error) {
+  }
 }
@@ -0,0 +1,175 @@
+package com.access.control.service.services;
+
+import com.access.control.service.context.CallContext;
+import com.access.control.service.exception.ApiException;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.access.control.service.utils.FutureUtils.join;
+
+/**
+ * Single-flight coalescing of identical SpiceDB reads: while a call is in flight, callers asking
+ * for the same operation and key wait for its result instead of issuing their own RPC.
+ * A flight is only joined at the same ZedToken and until the next write made through
+ * AuthorizationService, so no caller gets an answer older than a write it has already seen.
+ * Works independently of the caches, which only help once an answer has arrived.
+ */
+@Slf4j
+@Component
+public class CallCoalescer {
+
+  public static final String CALLS = "spicedb.coalescing.calls";
+  public static final String IN_FLIGHT = "spicedb.coalescing.in.flight";
+
+  private final boolean enabled;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<Flight, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+  public CallCoalescer(@Value("${spicedb.coalescing.enabled:true}") boolean enabled,
+                       MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.meterRegistry = meterRegistry;
+    Gauge.builder(IN_FLIGHT, inFlight, Map::size).register(meterRegistry);
+    log.info("SpiceDB call coalescing enabled={}", enabled);
+  }
+
+  /**
+   * Runs the blocking call, or waits for an identical one already in flight
+   */
+  public <T> T execute(String operation, Object key, Supplier<T> call) {
+    if (!enabled) {
+      return call.get();
+    }
+
+    Flight flight = flight(operation, key);
+    CompletableFuture<T> result = new CompletableFuture<>();
+    CompletableFuture<T> existing = claim(flight, result);
+    if (existing != null) {
+      try {
+        return join(inCallerContext(existing));
+      } catch (RuntimeException e) {
+        if (!isCallerSpecific(e)) {
+          throw e;
+        }
+        counter(operation, "retry").increment();
+        return call.get();
+      }
+    }
+    lead(flight, result, () -> CompletableFuture.completedFuture(call.get()));
+    return join(result);
+  }
+
+  /**
+   * Starts the call, or shares the result of an identical one already in flight. Stages chained
+   * onto the result run with the caller's CallContext, not the one of the caller that made the RPC.
+   * A follower whose leader failed for reasons of its own starts the call itself, on the thread
+   * that completed the flight, so the call must not block.
+   */
+  public <T> CompletableFuture<T> executeAsync(String operation, Object key, Supplier<CompletableFuture<T>> call) {
+    if (!enabled) {
+      return call.get();
+    }
+
+    Flight flight = flight(operation, key);
+    CompletableFuture<T> result = new CompletableFuture<>();
+    CompletableFuture<T> existing = claim(flight, result);
+    if (existing != null) {
+      return inCallerContext(existing).exceptionallyCompose(error -> {
+        if (!isCallerSpecific(error)) {
+          return CompletableFuture.failedFuture(error);
+        }
+        counter(operation, "retry").increment();
+        return call.get();
+      });
+    }
+    lead(flight, result, call);
+    return inCallerContext(result);
+  }
+
+  private Flight flight(String operation, Object key) {
+    return new Flight(operation, key, CallContext.currentZedToken(), generation.get());
+  }
+
+  /**
+   * Registers result as the flight, or returns the one already in flight
+   */
+  @SuppressWarnings("unchecked")
+  private <T> CompletableFuture<T> claim(Flight flight, CompletableFuture<T> result) {
+    CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(flight, result);
+    counter(flight.operation(), existing == null ? "leader" : "follower").increment();
+    return existing;
+  }
+
+  private <T> void lead(Flight flight, CompletableFuture<T> result, Supplier<CompletableFuture<T>> call) {
+    try {
+      call.get().whenComplete((value, error) -> {
+        // Late callers start a new flight rather than join one that has already answered
+        inFlight.remove(flight, result);
+        if (error != null) {
+          result.completeExceptionally(error);
+        } else {
+          result.complete(value);
+        }
+      });
+    } catch (RuntimeException e) {
+      inFlight.remove(flight, result);
+      result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Failures that belong to the leader's request rather than to the call, such as a spent call
+   * budget or a cancelled client, are not shared with followers
+   */
+  private static boolean isCallerSpecific(Throwable error) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    return cause instanceof ApiException
+      || cause instanceof CancellationException
+      || Status.fromThrowable(cause).getCode() == Status.Code.CANCELLED;
+  }
+
+  /**
+   * Called on every write, so flights started before it are no longer joined
+   */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+  }
+
+  private static <T> CompletableFuture<T> inCallerContext(CompletableFuture<T> flight) {
+    CallContext context = CallContext.current();
+    CompletableFuture<T> shared = new CompletableFuture<>();
+    flight.whenComplete((value, error) -> CallContext.runWith(context, () -> {
+      if (error != null) {
+        shared.completeExceptionally(error);
+      } else {
+        shared.complete(value);
+      }
+    }));
+    return shared;
+  }
+
+  private Counter counter(String operation, String role) {
+    return counters.computeIfAbsent(operation + ":" + role, ignored -> Counter.builder(CALLS)
+      .tags("operation", operation, "role", role)
+      .register(meterRegistry));
+  }
+
+  private record Flight(String operation, Object key, String zedToken, long generation) {
+  }
+}
@@ -1,20 +1,22 @@
 package com.access.control.service.services;
 
-import com.access.control.service.builders.PermissionOptions;
 import com.access.control.service.builders.RelationshipOptions;
 import com.access.control.service.dto.GroupAccessRequest;
+import com.access.control.service.enums.Direction;
 import com.access.control.service.enums.Permission;
 import com.access.control.service.enums.Relation;
 import com.access.control.service.enums.Resource;
 import com.access.control.service.enums.Subject;
 import com.access.control.service.exception.ApiException;
+import com.access.control.service.guards.RequirePermission;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 import static com.access.control.service.utils.constants.TENANT_ID;
 
@@ -25,6 +27,9 @@ public class GroupService {
 
   private final AuthorizationService authorizationService;
 
+  @Value("${acl.groups.max-member-page-size:10000}")
+  private int maxMemberPageSize;
+
   /**
    * Create a new group
    */
@@ -46,18 +51,12 @@ public class GroupService {
   /**
    * Add a member to a group (only owner or admin can do this)
    */
+  @RequirePermission(resource = "GROUP", resourceId = "#groupId", permission = Permission.WRITE,
+    message = "Only group owner or admin can add members")
   public void addGroupMember(String groupId, String memberId, HttpServletRequest httpServletRequest) {
     log.info("Add member to group {}: {} by {}", groupId, memberId, httpServletRequest);
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
-    // Check if requester has manage_members permission
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(Resource.GROUP).resourceId(groupId)
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.WRITE).build())) {
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "Only group owner or admin can add members");
-    }
     authorizationService.writeRelationship(
       RelationshipOptions.builder()
         .resource(Resource.GROUP).resourceId(groupId)
@@ -71,28 +70,14 @@ public class GroupService {
   /**
    * Remove a member from a group (only owner or admin can do this)
    */
+  @RequirePermission(resource = "GROUP", resourceId = "#groupId", permission = Permission.WRITE,
+    message = "Only group owner or admin can remove members")
+  @RequirePermission(resource = "GROUP", resourceId = "#groupId", permission = Permission.DELETE,
+    status = HttpStatus.BAD_REQUEST, message = "Cannot remove group owner")
   public void removeGroupMember(String groupId, String memberId, HttpServletRequest httpServletRequest) {
     log.info("Remove member {} from group {} by {}", memberId, groupId, httpServletRequest);
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
-    // Check if requester has manage_members permission
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(Resource.GROUP).resourceId(groupId)
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.WRITE).build())) {
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "Only group owner or admin can remove members");
-    }
-
-    // Prevent removing owner
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(Resource.GROUP).resourceId(groupId)
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.DELETE).build())) {
-      throw new ApiException(HttpStatus.BAD_REQUEST,
-        "Cannot remove group owner");
-    }
-
     authorizationService.deleteRelationship(
       Resource.GROUP, groupId,
       Relation.MEMBER, Subject.TENANT, memberId
@@ -104,27 +89,14 @@ public class GroupService {
   /**
    * Grant group access to a resource (only owner or admin can do this)
    */
+  @RequirePermission(resource = "GROUP", resourceId = "#groupId", permission = Permission.WRITE,
+    message = "Only group owner or admin can grant group access")
+  @RequirePermission(resource = "#request.resource", resourceId = "#request.resourceId",
+    permission = Permission.GRANT, message = "You don't have permission to grant access to this resource")
   public void grantGroupAccess(String groupId, GroupAccessRequest request, HttpServletRequest httpServletRequest) {
     log.info("Grant group access: {}", request);
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
-    // Check if requester has manage_members permission on the group
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(Resource.GROUP).resourceId(groupId)
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.WRITE).build())) {
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "Only group owner or admin can grant group access");
-    }
-
-    // Also check if requester has grant permission on the resource
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(request.getResource()).resourceId(request.getResourceId())
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.GRANT).build())) {
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "You don't have permission to grant access to this resource");
-    }
     authorizationService.writeRelationship(RelationshipOptions.builder()
       .resource(request.getResource()).resourceId(request.getResourceId())
       .subject(Subject.GROUP).subjectId(groupId).subRelation(Relation.MEMBER)
@@ -140,28 +112,14 @@ public class GroupService {
   /**
    * Revoke group access from a resource (only owner or admin can do this)
    */
+  @RequirePermission(resource = "GROUP", resourceId = "#groupId", permission = Permission.WRITE,
+    message = "Only group owner or admin can revoke group access")
+  @RequirePermission(resource = "#request.resource", resourceId = "#request.resourceId",
+    permission = Permission.REVOKE, message = "You don't have permission to revoke access from this resource")
   public void revokeGroupAccess(String groupId, GroupAccessRequest request, HttpServletRequest httpServletRequest) {
     log.info("Revoke group access: {}", request);
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
-    // Check if requester has manage members permission on the group
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(Resource.GROUP).resourceId(groupId)
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.WRITE).build())) {
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "Only group owner or admin can revoke group access");
-    }
-
-    // Also check if requester has revoke permission on the resource
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(request.getResource()).resourceId(request.getResourceId())
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.REVOKE).build())) {
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "You don't have permission to revoke access from this resource");
-    }
-
     authorizationService.deleteRelationship(
       request.getResource(), request.getResourceId(),
       request.getRelation(), Subject.GROUP, groupId
@@ -174,50 +132,44 @@ public class GroupService {
   /**
    * Delete a group (only owner can do this)
    */
+  @RequirePermission(resource = "GROUP", resourceId = "#groupId", permission = Permission.DELETE,
+    message = "Only group owner can delete the group")
   public void deleteGroup(String groupId, HttpServletRequest httpServletRequest) {
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
     log.info("Delete group {} by {}", groupId, tenantId);
 
-    // Check if requester is owner
-    if (!authorizationService.checkPermission(PermissionOptions.builder()
-      .resource(Resource.GROUP).resourceId(groupId)
-      .subject(Subject.TENANT).subjectId(tenantId)
-      .permission(Permission.DELETE).build())) {
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "Only group owner can delete the group");
-    }
-
     // Delete all relationships for this group
     authorizationService.deleteRelationship(Resource.GROUP, groupId);
     log.info("Deleted group {} by {}", groupId, tenantId);
   }
 
-  public List<String> getAllMembers(String groupId, HttpServletRequest httpServletRequest) {
-    String tenantId = httpServletRequest.getHeader(TENANT_ID);
-
-    // Security gate: only owner can list members (adjust if needed)
-    if (!authorizationService.checkPermission(
-      PermissionOptions.builder()
-        .resource(Resource.GROUP)
-        .resourceId(groupId)
-        .subject(Subject.TENANT)
-        .subjectId(tenantId)
-        .permission(Permission.READ)
-        .build())) {
-
-      throw new ApiException(HttpStatus.FORBIDDEN,
-        "Only group owner can view members");
+  /**
+   * Guard for listing members, evaluated before a streamed response is committed
+   */
+  @RequirePermission(resource = "GROUP", resourceId = "#groupId", permission = Permission.READ,
+    message = "Only group owner can view members")
+  public void validateMemberRead(String groupId, Integer limit, HttpServletRequest httpServletRequest) {
+    if (limit != null && (limit <= 0 || limit > maxMemberPageSize)) {
+      throw new ApiException(HttpStatus.BAD_REQUEST,
+        "limit must be between 1 and %d".formatted(maxMemberPageSize));
     }
-
-    // Expand group#member
-
-    return authorizationService.expandPermissionTree(
-      Resource.GROUP,
-      groupId,
-      Relation.MEMBER
-    );
   }
 
+  /**
+   * Streams all members as LookupSubjects yields them
+   */
+  public void streamMembers(String groupId, Consumer<String> consumer) {
+    authorizationService.streamSubjects(Resource.GROUP, groupId, Relation.MEMBER, consumer);
+  }
 
-}
\ No newline at end of file
+  /**
+   * Reads one page of members. Members are direct tenant relations on the group, so the page
+   * is served by ReadRelationships, which supports server-side cursors.
+   * Returns the cursor for the next page, or null on the last page.
+   */
+  public String getMemberPage(String groupId, int limit, String cursor, Consumer<String> consumer) {
+    return authorizationService.readRelationships(Direction.OUTGOING, Resource.GROUP, groupId,
+      Relation.MEMBER, limit, cursor, rel -> consumer.accept(rel.getToResourceId()));
+  }
+}
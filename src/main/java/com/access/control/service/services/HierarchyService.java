@@ -1,24 +1,36 @@
 package com.access.control.service.services;
 
 import com.access.control.service.builders.PermissionOptions;
+import com.access.control.service.cache.AncestorCache;
+import com.access.control.service.context.CallContext;
 import com.access.control.service.dto.HierarchyRelation;
 import com.access.control.service.dto.HierarchyResponse;
 import com.access.control.service.dto.HierarchySummary;
 import com.access.control.service.dto.RelationshipInfo;
 import com.access.control.service.enums.*;
-import com.acl.project.enums.*;
 import com.access.control.service.exception.ApiException;
+import com.access.control.service.mirror.RelationshipGraphMirror;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import static com.access.control.service.utils.FutureUtils.join;
 import static com.access.control.service.utils.constants.ROOT_RESOURCE;
 import static com.access.control.service.utils.constants.TENANT_ID;
 
@@ -27,14 +39,57 @@ import static com.access.control.service.utils.constants.TENANT_ID;
 @Slf4j
 public class HierarchyService {
 
+  // Smallest bulk check slice, so a nearly spent budget does not turn a level into many calls
+  private static final int MIN_CHECK_SLICE = 100;
+  // Frontier resources read to tell a cut-off from the end of the tree
+  private static final int MAX_TRUNCATION_PROBES = 8;
+
   private final AuthorizationService authorizationService;
+  private final ExecutorService spicedbExecutor;
+  private final RelationshipGraphMirror graphMirror;
+  private final AncestorCache ancestorCache;
+
+  @Value("${acl.hierarchy.max-concurrency:32}")
+  private int maxConcurrency;
+
+  @Value("${acl.hierarchy.max-nodes:100000}")
+  private int maxNodesLimit;
 
   public HierarchyResponse getCompleteHierarchy(Resource resource,
                                                 String resourceId,
+                                                Integer maxDepth,
+                                                Integer maxNodes,
                                                 HttpServletRequest httpServletRequest) {
     log.info("Getting complete hierarchy for {}:{}", resource, resourceId);
+    validateHierarchyRead(resource, resourceId, maxDepth, maxNodes, httpServletRequest);
+
+    List<HierarchyRelation> allRelations = new ArrayList<>();
+    HierarchySummary summary = streamHierarchy(resource, resourceId, maxDepth, maxNodes,
+      httpServletRequest.getHeader(TENANT_ID), allRelations::add);
+
+    return HierarchyResponse.builder()
+      .resource(resource)
+      .resourceId(resourceId)
+      .relations(allRelations)
+      .summary(summary)
+      .build();
+  }
+
+  /**
+   * Guard for hierarchy reads, evaluated before a streamed response is committed
+   */
+  public void validateHierarchyRead(Resource resource, String resourceId, Integer maxDepth, Integer maxNodes,
+                                    HttpServletRequest httpServletRequest) {
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
+    if (maxDepth != null && maxDepth <= 0) {
+      throw new ApiException(HttpStatus.BAD_REQUEST, "maxDepth must be positive.");
+    }
+    if (maxNodes != null && (maxNodes <= 0 || maxNodes > maxNodesLimit)) {
+      throw new ApiException(HttpStatus.BAD_REQUEST,
+        "maxNodes must be between 1 and %d".formatted(maxNodesLimit));
+    }
+
     if (!authorizationService.checkPermission(PermissionOptions.builder()
       .resource(resource).resourceId(resourceId)
       .subject(Subject.TENANT).subjectId(tenantId)
@@ -42,163 +97,381 @@ public class HierarchyService {
       throw new ApiException(HttpStatus.FORBIDDEN,
         "Subject does not have view permission.");
     }
+  }
 
-    List<HierarchyRelation> allRelations = new ArrayList<>();
+  /**
+   * Hands relations to the consumer as they are discovered: all parents breadth-first, then the
+   * visible children breadth-first. Only node keys are kept between levels, at most one per
+   * emitted relation, so memory follows the node budget rather than the whole tree. Stops once maxNodes relations were emitted or
+   * below maxDepth levels in either direction, and returns the summary counted along the way.
+   */
+  public HierarchySummary streamHierarchy(Resource resource, String resourceId, Integer maxDepth, Integer maxNodes,
+                                          String tenantId, Consumer<HierarchyRelation> consumer) {
+    // Both walks share one concurrency cap for this request
+    Semaphore permits = new Semaphore(maxConcurrency);
 
-    // Get all parent relationships (going up the tree)
-    allRelations.addAll(getAllParents(resource, resourceId));
+    // Resolve all parents (going up the tree) while the children walk starts
+    CompletableFuture<Map<String, List<RelationshipInfo>>> parents = CompletableFuture.supplyAsync(
+      () -> resolveParents(resource, resourceId, permits), spicedbExecutor);
 
-    // Get all child relationships (going down the tree)
-    allRelations.addAll(getAllChildren(resource, resourceId, tenantId));
+    HierarchyWalk walk = new HierarchyWalk(consumer,
+      maxDepth == null ? Integer.MAX_VALUE : maxDepth,
+      maxNodes == null ? maxNodesLimit : maxNodes);
 
-    // Calculate summary
-    HierarchySummary summary = calculateSummary(allRelations);
+    // Parents are written first, as soon as the children walk has anything to write
+    Runnable emitParents = () -> emitParents(resource, resourceId, join(parents), walk);
+    walkVisibleChildren(resource, resourceId, tenantId, permits, walk, emitParents);
+    walk.runOnce(emitParents);
 
-    return HierarchyResponse.builder()
-      .resource(resource)
-      .resourceId(resourceId)
-      .relations(allRelations)
-      .summary(summary)
-      .build();
+    return walk.summary();
   }
 
   /**
-   * Get all parents recursively
+   * Emits the ancestor edges level by level, starting from the resource
    */
-  private List<HierarchyRelation> getAllParents(Resource resource, String resourceId) {
-    List<HierarchyRelation> parents = new ArrayList<>();
+  private void emitParents(Resource resource, String resourceId, Map<String, List<RelationshipInfo>> outgoing,
+                           HierarchyWalk walk) {
     Set<String> visited = new HashSet<>();
+    List<String> frontier = List.of(nodeKey(resource, resourceId));
+    visited.add(frontier.get(0));
+
+    for (int level = 1; !frontier.isEmpty() && level <= walk.maxDepth; level++) {
+      List<String> nextFrontier = new ArrayList<>();
+      for (String key : frontier) {
+        for (RelationshipInfo rel : outgoing.getOrDefault(key, List.of())) {
+          if (!walk.emit(HierarchyRelation.builder()
+            .accessType(level == 1 ? AccessType.DIRECT : AccessType.INDIRECT)
+            .resource(rel.getToResource())
+            .resourceId(rel.getToResourceId())
+            .level(level)
+            .relation(Relation.PARENT)
+            .build())) {
+            return;
+          }
+
+          String parentKey = nodeKey(rel.getToResource(), rel.getToResourceId());
+          if (visited.add(parentKey)) {
+            nextFrontier.add(parentKey);
+          }
+        }
+      }
+      frontier = nextFrontier;
+    }
+    walk.markTruncatedIf(!frontier.isEmpty() && hasEdges(frontier, outgoing));
+  }
 
-    traverseParents(resource, resourceId, 1, parents, visited);
-
-    return parents;
+  private static boolean hasEdges(List<String> frontier, Map<String, List<RelationshipInfo>> outgoing) {
+    return frontier.stream().anyMatch(key -> !outgoing.getOrDefault(key, List.of()).isEmpty());
   }
 
-  private void traverseParents(Resource resource, String resourceId,
-                               int level, List<HierarchyRelation> parents, Set<String> visited) {
-    String key = resource + ":" + resourceId;
-    if (visited.contains(key)) {
-      return; // Prevent infinite loops
+  /**
+   * The ancestor edges from the cache, or from a walk whose result is then cached. The mirror
+   * is already local, and token-pinned reads must reach SpiceDB, so neither uses the cache.
+   */
+  private Map<String, List<RelationshipInfo>> resolveParents(Resource resource, String resourceId,
+                                                             Semaphore permits) {
+    if (!ancestorCache.isEnabled() || useMirror() || CallContext.currentZedToken() != null) {
+      return discoverParents(resource, resourceId, permits);
     }
-    visited.add(key);
 
-    // Get all outgoing relations for this resource
-    List<RelationshipInfo> outgoingRelations = new ArrayList<>();
-    if (!resource.name().equalsIgnoreCase(ROOT_RESOURCE)) {
-      outgoingRelations =
-        authorizationService.getOutgoingRelations(resource, resourceId, Relation.PARENT);
+    Map<String, List<RelationshipInfo>> cached = ancestorCache.get(resource, resourceId);
+    if (cached != null) {
+      return cached;
     }
 
-    for (RelationshipInfo rel : outgoingRelations) {
-      AccessType accessType = (level == 1) ? AccessType.DIRECT : AccessType.INDIRECT;
-
-      parents.add(HierarchyRelation.builder()
-        .accessType(accessType)
-        .resource(rel.getToResource())
-        .resourceId(rel.getToResourceId())
-        .level(level)
-        .relation(Relation.PARENT)
-        .build());
+    long generation = ancestorCache.generation();
+    Map<String, List<RelationshipInfo>> outgoing = discoverParents(resource, resourceId, permits);
+    ancestorCache.put(resource, resourceId, outgoing, generation);
+    return outgoing;
+  }
 
-      // Recursively traverse up
-      traverseParents(rel.getToResource(), rel.getToResourceId(),
-        level + 1, parents, visited);
+  /**
+   * Walk up breadth-first, reading the PARENT edges of a whole level concurrently
+   */
+  private Map<String, List<RelationshipInfo>> discoverParents(Resource resource, String resourceId,
+                                                              Semaphore permits) {
+    Map<String, List<RelationshipInfo>> outgoing = new HashMap<>();
+    List<RelationshipInfo> frontier = List.of(RelationshipInfo.builder()
+      .resource(resource).resourceId(resourceId).build());
+
+    while (!frontier.isEmpty()) {
+      Map<String, List<RelationshipInfo>> levelRelations = fetchLevel(frontier, permits, node ->
+        // Get all outgoing relations for this resource
+        node.getResource().name().equalsIgnoreCase(ROOT_RESOURCE)
+          ? List.of()
+          : useMirror()
+            ? graphMirror.getParents(node.getResource(), node.getResourceId())
+            : authorizationService.getOutgoingRelations(node.getResource(), node.getResourceId(), Relation.PARENT));
+      outgoing.putAll(levelRelations);
+
+      Map<String, RelationshipInfo> nextFrontier = new LinkedHashMap<>();
+      for (List<RelationshipInfo> relations : levelRelations.values()) {
+        for (RelationshipInfo rel : relations) {
+          nextFrontier.putIfAbsent(nodeKey(rel.getToResource(), rel.getToResourceId()),
+            RelationshipInfo.builder().resource(rel.getToResource()).resourceId(rel.getToResourceId()).build());
+        }
+      }
+      nextFrontier.keySet().removeAll(outgoing.keySet());
+      frontier = new ArrayList<>(nextFrontier.values());
     }
+
+    return outgoing;
   }
 
   /**
-   * Get all children recursively
+   * Walk the subtree level by level: the PARENT edges of a level are read concurrently, then its
+   * children are filtered with bulk checks, so wall time follows depth, not size. Visible
+   * children are emitted as soon as they are checked and only they are expanded, each at most
+   * once, so cycles and shared children are walked once and the visited set is bounded by the
+   * node budget.
    */
-  private List<HierarchyRelation> getAllChildren(Resource resource, String resourceId, String requesterId) {
-    List<HierarchyRelation> children = new ArrayList<>();
-    Set<String> visited = new HashSet<>();
+  private void walkVisibleChildren(Resource resource, String resourceId, String userId, Semaphore permits,
+                                   HierarchyWalk walk, Runnable beforeFirst) {
+    Set<String> expanded = new HashSet<>();
+    List<RelationshipInfo> frontier = List.of(RelationshipInfo.builder()
+      .resource(resource).resourceId(resourceId).build());
+    expanded.add(nodeKey(resource, resourceId));
+
+    for (int level = 1; !frontier.isEmpty(); level++) {
+      if (level > walk.maxDepth || walk.isExhausted()) {
+        // Only a cut-off that hides children counts as truncation
+        walk.markTruncatedIf(hasChildren(frontier));
+        return;
+      }
 
-    traverseChildren(resource, resourceId, requesterId, 1, children, visited);
+      // Get all resources that have a frontier resource as parent
+      Map<String, List<RelationshipInfo>> levelRelations = fetchLevel(frontier, permits,
+        node -> getChildren(node, null));
+
+      // A child already walked through another parent, or a cycle back up, is skipped
+      Map<String, RelationshipInfo> children = new LinkedHashMap<>();
+      for (List<RelationshipInfo> relations : levelRelations.values()) {
+        for (RelationshipInfo rel : relations) {
+          String key = nodeKey(rel.getResource(), rel.getResourceId());
+          if (!expanded.contains(key)) {
+            children.putIfAbsent(key, rel);
+          }
+        }
+      }
 
-    return children;
+      // Check if user has permission to view the children, no more at a time than the budget allows
+      List<RelationshipInfo> unchecked = new ArrayList<>(children.values());
+      List<RelationshipInfo> nextFrontier = new ArrayList<>();
+      for (int from = 0; from < unchecked.size(); ) {
+        if (walk.isExhausted()) {
+          walk.markTruncatedIf(true);
+          return;
+        }
+        int to = Math.min(unchecked.size(), from + Math.max(walk.remaining(), MIN_CHECK_SLICE));
+        List<RelationshipInfo> slice = unchecked.subList(from, to);
+        List<Boolean> allowed = authorizationService.checkBulkPermissions(slice.stream()
+          .map(rel -> PermissionOptions.builder()
+            .resource(rel.getResource()).resourceId(rel.getResourceId())
+            .subject(Subject.TENANT).subjectId(userId)
+            .permission(Permission.READ).build())
+          .toList(), permits);
+
+        for (int i = 0; i < slice.size(); i++) {
+          if (!allowed.get(i)) {
+            continue;
+          }
+          RelationshipInfo rel = slice.get(i);
+          walk.runOnce(beforeFirst);
+          if (!walk.emit(HierarchyRelation.builder()
+            .accessType(level == 1 ? AccessType.DIRECT : AccessType.INDIRECT)
+            .resource(rel.getResource())
+            .resourceId(rel.getResourceId())
+            .level(level)
+            .relation(Relation.CHILD)
+            .build())) {
+            return;
+          }
+          expanded.add(nodeKey(rel.getResource(), rel.getResourceId()));
+          nextFrontier.add(rel);
+        }
+        from = to;
+      }
+      frontier = nextFrontier;
+    }
   }
 
-  private void traverseChildren(Resource resource, String resourceId, String userId,
-                                int level, List<HierarchyRelation> children, Set<String> visited) {
-    String key = resource + ":" + resourceId;
-    if (visited.contains(key)) {
-      return;
+  /**
+   * True if a frontier resource may have a child. Reads one edge of at most the first
+   * MAX_TRUNCATION_PROBES resources, stopping at the first child, and assumes the rest of a
+   * wider frontier has some.
+   */
+  private boolean hasChildren(List<RelationshipInfo> frontier) {
+    for (RelationshipInfo node : frontier.subList(0, Math.min(frontier.size(), MAX_TRUNCATION_PROBES))) {
+      if (!getChildren(node, 1).isEmpty()) {
+        return true;
+      }
     }
-    visited.add(key);
+    return frontier.size() > MAX_TRUNCATION_PROBES;
+  }
 
-    // Get all resources of this type that have this resource as parent
-    List<RelationshipInfo> incomingRelations =
-      authorizationService.getIncomingRelations(resource, resourceId, Relation.PARENT);
+  /**
+   * The resources with the node as parent, at most limit of them unless limit is null
+   */
+  private List<RelationshipInfo> getChildren(RelationshipInfo node, Integer limit) {
+    if (useMirror()) {
+      return graphMirror.getChildren(node.getResource(), node.getResourceId());
+    }
+    if (limit == null) {
+      return authorizationService.getIncomingRelations(node.getResource(), node.getResourceId(), Relation.PARENT);
+    }
+    List<RelationshipInfo> children = new ArrayList<>(limit);
+    authorizationService.readRelationships(Direction.INCOMING, node.getResource(), node.getResourceId(),
+      Relation.PARENT, limit, null, children::add);
+    return children;
+  }
 
-    for (RelationshipInfo rel : incomingRelations) {
-      // Check if user has permission to view this child
-      if (!authorizationService.checkPermission(PermissionOptions.builder()
-        .resource(rel.getResource()).resourceId(rel.getResourceId())
-        .subject(Subject.TENANT).subjectId(userId)
-        .permission(Permission.READ).build())) {
-        continue;
+  /**
+   * Run the fetch for every node of a level on virtual threads, at most permits-many at a time.
+   * Mirror reads are local, so they run inline.
+   */
+  private Map<String, List<RelationshipInfo>> fetchLevel(List<RelationshipInfo> frontier, Semaphore permits,
+                                                         Function<RelationshipInfo, List<RelationshipInfo>> fetch) {
+    Map<String, List<RelationshipInfo>> levelRelations = new LinkedHashMap<>();
+    if (frontier.size() == 1 || useMirror()) {
+      for (RelationshipInfo node : frontier) {
+        levelRelations.put(nodeKey(node.getResource(), node.getResourceId()), fetch.apply(node));
       }
+      return levelRelations;
+    }
 
-      AccessType accessType = (level == 1) ? AccessType.DIRECT : AccessType.INDIRECT;
+    Map<String, CompletableFuture<List<RelationshipInfo>>> futures = new LinkedHashMap<>();
+    for (RelationshipInfo node : frontier) {
+      futures.put(nodeKey(node.getResource(), node.getResourceId()), CompletableFuture.supplyAsync(() -> {
+        permits.acquireUninterruptibly();
+        try {
+          return fetch.apply(node);
+        } finally {
+          permits.release();
+        }
+      }, spicedbExecutor));
+    }
+    futures.forEach((key, future) -> levelRelations.put(key, join(future)));
+    return levelRelations;
+  }
 
-      children.add(HierarchyRelation.builder()
-        .accessType(accessType)
-        .resource(rel.getResource())
-        .resourceId(rel.getResourceId())
-        .level(level)
-        .relation(Relation.CHILD)
-        .build());
+  /**
+   * The mirror cannot tell whether it has caught up with a client's ZedToken, so those reads go
+   * to SpiceDB
+   */
+  private boolean useMirror() {
+    return graphMirror.isReady() && CallContext.currentZedToken() == null;
+  }
 
-      // Recursively traverse down
-      traverseChildren(rel.getResource(), rel.getResourceId(), userId,
-        level + 1, children, visited);
-    }
+  private static String nodeKey(Resource resource, String resourceId) {
+    return resource + ":" + resourceId;
   }
 
   /**
-   * Calculate summary statistics
+   * Calculate summary statistics in one pass. Package-private for the benchmarks module.
    */
-  private HierarchySummary calculateSummary(List<HierarchyRelation> relations) {
-    long directParents = relations.stream()
-      .filter(r -> Relation.PARENT.equals(r.getRelation())
-        && AccessType.DIRECT.equals(r.getAccessType()))
-      .count();
-
-    long directChildren = relations.stream()
-      .filter(r -> Relation.CHILD.equals(r.getRelation())
-        && AccessType.DIRECT.equals(r.getAccessType()))
-      .count();
-
-    long indirectParents = relations.stream()
-      .filter(r -> Relation.PARENT.equals(r.getRelation())
-        && AccessType.INDIRECT.equals(r.getAccessType()))
-      .count();
-
-    long indirectChildren = relations.stream()
-      .filter(r -> Relation.CHILD.equals(r.getRelation())
-        && AccessType.INDIRECT.equals(r.getAccessType()))
-      .count();
-
-    int maxParentLevel = relations.stream()
-      .filter(r -> r.getRelation().equals(Relation.PARENT))
-      .mapToInt(HierarchyRelation::getLevel)
-      .max()
-      .orElse(0);
-
-    int maxChildLevel = relations.stream()
-      .filter(r -> r.getRelation().equals(Relation.CHILD))
-      .mapToInt(HierarchyRelation::getLevel)
-      .max()
-      .orElse(0);
-
-    return HierarchySummary.builder()
-      .totalRelations(relations.size())
-      .directParents((int) directParents)
-      .directChildren((int) directChildren)
-      .indirectParents((int) indirectParents)
-      .indirectChildren((int) indirectChildren)
-      .maxParentLevel(maxParentLevel)
-      .maxChildLevel(maxChildLevel)
-      .build();
+  static HierarchySummary calculateSummary(List<HierarchyRelation> relations) {
+    SummaryCounter counter = new SummaryCounter();
+    relations.forEach(counter::add);
+    return counter.toSummary(false);
+  }
+
+  /**
+   * Emission state of one hierarchy request: the node budget, and the summary counted as
+   * relations are emitted
+   */
+  private static final class HierarchyWalk {
+
+    private final Consumer<HierarchyRelation> consumer;
+    private final int maxDepth;
+    private final int maxNodes;
+    private final SummaryCounter counter = new SummaryCounter();
+    private boolean started;
+    private boolean truncated;
+
+    HierarchyWalk(Consumer<HierarchyRelation> consumer, int maxDepth, int maxNodes) {
+      this.consumer = consumer;
+      this.maxDepth = maxDepth;
+      this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Emits the relation, or returns false once the node budget is spent
+     */
+    boolean emit(HierarchyRelation relation) {
+      if (isExhausted()) {
+        truncated = true;
+        return false;
+      }
+      consumer.accept(relation);
+      counter.add(relation);
+      return true;
+    }
+
+    boolean isExhausted() {
+      return counter.total >= maxNodes;
+    }
+
+    int remaining() {
+      return maxNodes - counter.total;
+    }
+
+    void runOnce(Runnable task) {
+      if (!started) {
+        started = true;
+        task.run();
+      }
+    }
+
+    void markTruncatedIf(boolean condition) {
+      truncated |= condition;
+    }
+
+    HierarchySummary summary() {
+      return counter.toSummary(truncated);
+    }
+  }
+
+  private static final class SummaryCounter {
+
+    private int total;
+    private int directParents;
+    private int directChildren;
+    private int indirectParents;
+    private int indirectChildren;
+    private int maxParentLevel;
+    private int maxChildLevel;
+
+    void add(HierarchyRelation relation) {
+      total++;
+      boolean direct = AccessType.DIRECT.equals(relation.getAccessType());
+      if (Relation.PARENT.equals(relation.getRelation())) {
+        if (direct) {
+          directParents++;
+        } else {
+          indirectParents++;
+        }
+        maxParentLevel = Math.max(maxParentLevel, relation.getLevel());
+      } else if (Relation.CHILD.equals(relation.getRelation())) {
+        if (direct) {
+          directChildren++;
+        } else {
+          indirectChildren++;
+        }
+        maxChildLevel = Math.max(maxChildLevel, relation.getLevel());
+      }
+    }
+
+    HierarchySummary toSummary(boolean truncated) {
+      return HierarchySummary.builder()
+        .totalRelations(total)
+        .directParents(directParents)
+        .directChildren(directChildren)
+        .indirectParents(indirectParents)
+        .indirectChildren(indirectChildren)
+        .maxParentLevel(maxParentLevel)
+        .maxChildLevel(maxChildLevel)
+        .truncated(truncated)
+        .build();
+    }
   }
-}
\ No newline at end of file
+}
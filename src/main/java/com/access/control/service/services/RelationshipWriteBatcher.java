@@ -0,0 +1,206 @@
+package com.access.control.service.services;
+
+import com.access.control.service.context.CallBudget;
+import com.access.control.service.context.CallContext;
+import com.authzed.api.v1.ObjectReference;
+import com.authzed.api.v1.PermissionsServiceGrpc;
+import com.authzed.api.v1.Relationship;
+import com.authzed.api.v1.RelationshipUpdate;
+import com.authzed.api.v1.WriteRelationshipsRequest;
+import com.authzed.api.v1.WriteRelationshipsResponse;
+import com.authzed.api.v1.ZedToken;
+import io.grpc.Status;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces relationship updates from concurrent callers into shared WriteRelationships calls.
+ * A batch is flushed when it reaches the per-request update limit or when its time window ends,
+ * and every caller's future completes with the batch's ZedToken or error. Each update is charged
+ * to its own caller's call budget when it is submitted, and the shared call runs without any
+ * caller's CallContext. Batches run concurrently, except that a batch touching a resource waits
+ * for the earlier batches touching it, so writes to one resource land in submission order.
+ */
+@Slf4j
+@Component
+public class RelationshipWriteBatcher {
+
+  private final PermissionsServiceGrpc.PermissionsServiceBlockingStub permissionsClient;
+  private final ExecutorService spicedbExecutor;
+  private final boolean enabled;
+  private final int maxUpdates;
+  private final long windowMillis;
+  private final ScheduledExecutorService scheduler;
+
+  private Batch current = new Batch();
+  // Completion of the latest dispatched batch touching each resource
+  private final Map<ObjectReference, CompletableFuture<Void>> lastWrites = new ConcurrentHashMap<>();
+
+  public RelationshipWriteBatcher(PermissionsServiceGrpc.PermissionsServiceBlockingStub permissionsClient,
+                                  ExecutorService spicedbExecutor,
+                                  @Value("${spicedb.write-batching.enabled:false}") boolean enabled,
+                                  @Value("${spicedb.write-batching.max-updates:1000}") int maxUpdates,
+                                  @Value("${spicedb.write-batching.window-ms:5}") long windowMillis) {
+    this.permissionsClient = permissionsClient;
+    this.spicedbExecutor = spicedbExecutor;
+    this.enabled = enabled;
+    this.maxUpdates = maxUpdates;
+    this.windowMillis = windowMillis;
+    this.scheduler = enabled
+      ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "spicedb-write-batcher");
+          thread.setDaemon(true);
+          return thread;
+        })
+      : null;
+    log.info("Relationship write batching enabled={}, maxUpdates={}, window={}ms",
+      enabled, maxUpdates, windowMillis);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public CompletableFuture<ZedToken> submit(RelationshipUpdate update) {
+    // An enforced budget rejects this caller's update before it can join a batch
+    CallContext context = CallContext.current();
+    CallBudget budget = context == null ? null : context.getBudget();
+    if (budget != null) {
+      budget.startCall();
+    }
+
+    CompletableFuture<ZedToken> future = new CompletableFuture<>();
+    Relationship key = identity(update.getRelationship());
+
+    synchronized (this) {
+      // SpiceDB rejects a request that updates the same relationship twice
+      if (current.keys.contains(key)) {
+        dispatch(current);
+      }
+
+      Batch batch = current;
+      batch.updates.add(update);
+      batch.futures.add(future);
+      batch.budgets.add(budget);
+      batch.keys.add(key);
+      batch.resources.add(key.getResource());
+
+      if (batch.updates.size() >= maxUpdates) {
+        dispatch(batch);
+      } else if (batch.updates.size() == 1) {
+        scheduler.schedule(() -> flush(batch), windowMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+    return future;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (scheduler != null) {
+      synchronized (this) {
+        if (!current.updates.isEmpty()) {
+          dispatch(current);
+        }
+      }
+      scheduler.shutdown();
+    }
+  }
+
+  private synchronized void flush(Batch batch) {
+    // The batch may already have been dispatched by size or a duplicate
+    if (batch == current && !batch.updates.isEmpty()) {
+      dispatch(batch);
+    }
+  }
+
+  private void dispatch(Batch batch) {
+    current = new Batch();
+
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    List<CompletableFuture<Void>> earlier = new ArrayList<>();
+    for (ObjectReference resource : batch.resources) {
+      CompletableFuture<Void> previous = lastWrites.put(resource, done);
+      if (previous != null) {
+        earlier.add(previous);
+      }
+    }
+
+    // Earlier batches always complete done, whether they succeeded or not
+    CompletableFuture.allOf(earlier.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) ->
+      spicedbExecutor.execute(() -> CallContext.runDetached(() -> {
+        try {
+          write(batch.updates, batch.futures, batch.budgets);
+        } finally {
+          batch.resources.forEach(resource -> lastWrites.remove(resource, done));
+          done.complete(null);
+        }
+      })));
+  }
+
+  private void write(List<RelationshipUpdate> updates, List<CompletableFuture<ZedToken>> futures,
+                     List<CallBudget> budgets) {
+    long startNanos = System.nanoTime();
+    try {
+      WriteRelationshipsResponse response = permissionsClient.writeRelationships(
+        WriteRelationshipsRequest.newBuilder().addAllUpdates(updates).build());
+      recordLatency(budgets, startNanos);
+      futures.forEach(future -> future.complete(response.getWrittenAt()));
+    } catch (RuntimeException e) {
+      recordLatency(budgets, startNanos);
+      Status.Code code = Status.fromThrowable(e).getCode();
+      if (updates.size() > 1
+        && (code == Status.Code.INVALID_ARGUMENT || code == Status.Code.FAILED_PRECONDITION)) {
+        // One bad update fails the whole transaction, so bisect to isolate it in a few calls
+        log.warn("Batched write of {} updates rejected ({}), retrying in halves", updates.size(), code);
+        int half = updates.size() / 2;
+        write(updates.subList(0, half), futures.subList(0, half), budgets.subList(0, half));
+        write(updates.subList(half, updates.size()), futures.subList(half, futures.size()),
+          budgets.subList(half, budgets.size()));
+        return;
+      }
+      futures.forEach(future -> future.completeExceptionally(e));
+    }
+  }
+
+  private static void recordLatency(List<CallBudget> budgets, long startNanos) {
+    long latencyNanos = System.nanoTime() - startNanos;
+    for (CallBudget budget : budgets) {
+      if (budget != null) {
+        budget.recordLatency(latencyNanos);
+      }
+    }
+  }
+
+  /**
+   * Relationship identity as SpiceDB sees it, without caveat or expiration
+   */
+  private static Relationship identity(Relationship relationship) {
+    return Relationship.newBuilder()
+      .setResource(relationship.getResource())
+      .setRelation(relationship.getRelation())
+      .setSubject(relationship.getSubject())
+      .build();
+  }
+
+  private static class Batch {
+    private final List<RelationshipUpdate> updates = new ArrayList<>();
+    private final List<CompletableFuture<ZedToken>> futures = new ArrayList<>();
+    private final List<CallBudget> budgets = new ArrayList<>();
+    private final Set<Relationship> keys = new HashSet<>();
+    private final Set<ObjectReference> resources = new HashSet<>();
+  }
+}
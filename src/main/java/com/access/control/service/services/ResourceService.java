@@ -2,21 +2,42 @@ package com.access.control.service.services;
 
 import com.access.control.service.builders.PermissionOptions;
 import com.access.control.service.builders.RelationshipOptions;
+import com.access.control.service.context.CallContext;
+import com.access.control.service.dto.AccessibleResource;
+import com.access.control.service.dto.BulkImportProgress;
+import com.access.control.service.dto.BulkPermissionCheckRequest;
+import com.access.control.service.dto.ContinuationToken;
 import com.access.control.service.dto.CreateResource;
+import com.access.control.service.dto.DeleteJob;
 import com.access.control.service.dto.PermissionAccessRequest;
 import com.access.control.service.dto.PermissionCheckRequest;
+import com.access.control.service.dto.PermissionCheckResult;
+import com.access.control.service.dto.RelationshipInfo;
+import com.access.control.service.dto.ResourceSubject;
+import com.access.control.service.enums.Direction;
 import com.access.control.service.enums.Permission;
 import com.access.control.service.enums.Relation;
 import com.access.control.service.enums.Resource;
 import com.access.control.service.enums.Subject;
 import com.access.control.service.exception.ApiException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import static com.access.control.service.utils.constants.PASSWORD;
 import static com.access.control.service.utils.constants.TENANT_ID;
 
@@ -26,13 +47,130 @@ import static com.access.control.service.utils.constants.TENANT_ID;
 public class ResourceService {
 
   private final AuthorizationService authorizationService;
+  private final SubtreeDeleteService subtreeDeleteService;
+  private final ObjectMapper objectMapper;
+
+  @Value("${acl.bulk-check.max-items:1000}")
+  private int bulkCheckMaxItems;
+
+  @Value("${acl.bulk-import.chunk-size:1000}")
+  private int bulkImportChunkSize;
+
+  @Value("${acl.accessible.page-size:1000}")
+  private int accessiblePageSize;
+
+  @Value("${acl.accessible.max-page-size:10000}")
+  private int accessibleMaxPageSize;
 
   public void createResource(CreateResource request, HttpServletRequest httpServletRequest) {
 
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
+    String invalid = validateRecord(request);
+    if (invalid != null) {
+      throw new ApiException(HttpStatus.BAD_REQUEST, invalid);
+    }
+    for (RelationshipOptions relationship : resourceRelationships(request, tenantId)) {
+      authorizationService.writeRelationship(relationship);
+    }
+  }
+
+  /**
+   * Create resources from an NDJSON stream of CreateResource records. Records are imported in
+   * chunks, each chunk in one transaction holding both the owner and the parent relation of its
+   * resources, and progress is reported after every chunk.
+   */
+  public void importResources(InputStream inputStream, String tenantId,
+                              Consumer<BulkImportProgress> progressListener) throws IOException {
+    long totalResources = 0;
+    long totalLoaded = 0;
+    int chunk = 0;
+    int failedChunks = 0;
+
+    try (MappingIterator<CreateResource> records =
+           objectMapper.readerFor(CreateResource.class).readValues(inputStream)) {
+      while (records.hasNextValue()) {
+        List<RelationshipOptions> relationships = new ArrayList<>();
+        int resources = 0;
+        int rejected = 0;
+        String error = null;
+
+        while (resources + rejected < bulkImportChunkSize && records.hasNextValue()) {
+          CreateResource record = records.nextValue();
+          String invalid = validateRecord(record);
+          if (invalid != null) {
+            rejected++;
+            error = invalid;
+            continue;
+          }
+          relationships.addAll(resourceRelationships(record, tenantId));
+          resources++;
+        }
+
+        chunk++;
+        long loaded = 0;
+        if (!relationships.isEmpty()) {
+          try {
+            loaded = authorizationService.importRelationships(relationships);
+            totalResources += resources;
+            totalLoaded += loaded;
+          } catch (RuntimeException e) {
+            log.warn("Bulk import chunk {} failed", chunk, e);
+            failedChunks++;
+            error = e.getMessage();
+          }
+        }
+
+        progressListener.accept(BulkImportProgress.builder()
+          .chunk(chunk)
+          .resources(resources)
+          .rejected(rejected)
+          .relationshipsLoaded(loaded)
+          .totalResources(totalResources)
+          .totalRelationshipsLoaded(totalLoaded)
+          .failedChunks(failedChunks)
+          .error(error)
+          .build());
+      }
+    } catch (JsonProcessingException e) {
+      // A malformed line cannot be skipped reliably, so stop at it
+      progressListener.accept(BulkImportProgress.builder()
+        .chunk(chunk + 1)
+        .error("Malformed record: %s".formatted(e.getOriginalMessage()))
+        .build());
+      failedChunks++;
+    }
+
+    log.info("Bulk import for {} finished: {} resources, {} relationships, {} failed chunks",
+      tenantId, totalResources, totalLoaded, failedChunks);
+    progressListener.accept(BulkImportProgress.builder()
+      .totalResources(totalResources)
+      .totalRelationshipsLoaded(totalLoaded)
+      .failedChunks(failedChunks)
+      .done(true)
+      .build());
+  }
+
+  /**
+   * Returns why the record cannot be created, or null when it can
+   */
+  private static String validateRecord(CreateResource record) {
+    if (record.getResource() == null || StringUtils.isBlank(record.getResourceId())) {
+      return "Record without resource or resourceId: %s".formatted(record);
+    }
+    // The schema only allows folders as parents
+    if (StringUtils.isNotBlank(record.getParentResource())
+      && !Subject.FOLDER.getWireName().equalsIgnoreCase(record.getParentResource())) {
+      return "Parent resource must be a folder: %s".formatted(record);
+    }
+    return null;
+  }
+
+  private List<RelationshipOptions> resourceRelationships(CreateResource request, String tenantId) {
+    List<RelationshipOptions> relationships = new ArrayList<>(2);
+
     // Create ownership relationship
-    authorizationService.writeRelationship(
+    relationships.add(
       RelationshipOptions.builder()
         .resource(request.getResource())
         .resourceId(request.getResourceId())
@@ -46,23 +184,25 @@ public class ResourceService {
     if (StringUtils.isNotBlank(request.getParentResource())
       && StringUtils.isNotBlank(request.getParentResourceId())) {
 
-      authorizationService.writeRelationship(
+      relationships.add(
         RelationshipOptions.builder()
           .resource(request.getResource())
           .resourceId(request.getResourceId())
           .relation(Relation.PARENT)
-          .subject(Subject.valueOf(request.getParentResource().toUpperCase()))
+          .subject(Subject.fromWireName(request.getParentResource().toLowerCase()))
           .subjectId(request.getParentResourceId())
           .build()
       );
     }
+    return relationships;
   }
 
-  public boolean checkPermission(PermissionCheckRequest request, HttpServletRequest httpServletRequest) {
+  public CompletableFuture<Boolean> checkPermission(PermissionCheckRequest request,
+                                                    HttpServletRequest httpServletRequest) {
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
     String password = httpServletRequest.getHeader(PASSWORD);
 
-    return authorizationService.checkPermission(
+    return authorizationService.checkPermissionAsync(
       PermissionOptions.builder()
         .resource(request.getResource())
         .resourceId(request.getResourceId())
@@ -74,45 +214,167 @@ public class ResourceService {
     );
   }
 
-  public void deleteResource(Resource resource, String resourceId, HttpServletRequest httpServletRequest) {
+  public List<PermissionCheckResult> checkPermissions(BulkPermissionCheckRequest request,
+                                                      HttpServletRequest httpServletRequest) {
+    String tenantId = httpServletRequest.getHeader(TENANT_ID);
+    String password = httpServletRequest.getHeader(PASSWORD);
+
+    List<PermissionCheckRequest> items = request.getItems() == null ? List.of() : request.getItems();
+    if (items.size() > bulkCheckMaxItems) {
+      throw new ApiException(HttpStatus.BAD_REQUEST,
+        "At most %d items can be checked at once.".formatted(bulkCheckMaxItems));
+    }
+
+    List<PermissionOptions> options = new ArrayList<>(items.size());
+    for (PermissionCheckRequest item : items) {
+      options.add(PermissionOptions.builder()
+        .resource(item.getResource())
+        .resourceId(item.getResourceId())
+        .permission(item.getPermission())
+        .subject(Subject.TENANT)
+        .subjectId(tenantId)
+        .password(password)  // Can be null
+        .build());
+    }
+
+    List<Boolean> allowed = authorizationService.checkBulkPermissions(options);
+
+    List<PermissionCheckResult> results = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      PermissionCheckRequest item = items.get(i);
+      results.add(PermissionCheckResult.builder()
+        .resource(item.getResource())
+        .resourceId(item.getResourceId())
+        .permission(item.getPermission())
+        .allowed(allowed.get(i))
+        .build());
+    }
+    return results;
+  }
+
+  /**
+   * Guard for streamed relationship reads, evaluated before the response is committed. Only
+   * PARENT edges link two resources; the subjects of the other relations are tenants and groups.
+   */
+  public void validateRelationshipRead(Resource resource, String resourceId, Relation relation, Integer limit,
+                                       HttpServletRequest httpServletRequest) {
+    String tenantId = httpServletRequest.getHeader(TENANT_ID);
+
+    if (relation != Relation.PARENT) {
+      throw new ApiException(HttpStatus.BAD_REQUEST, "Only PARENT relationships can be streamed.");
+    }
+    if (limit != null && limit <= 0) {
+      throw new ApiException(HttpStatus.BAD_REQUEST, "limit must be positive.");
+    }
+    validatePermission(tenantId, resourceId, resource, Permission.READ);
+  }
+
+  public ContinuationToken streamRelationships(Resource resource, String resourceId, Relation relation,
+                                               Direction direction, Integer limit, String cursor,
+                                               Consumer<RelationshipInfo> consumer) {
+    long[] count = {0};
+    String nextCursor = authorizationService.readRelationships(direction, resource, resourceId, relation,
+      limit, cursor, rel -> {
+        consumer.accept(rel);
+        count[0]++;
+      });
+    return ContinuationToken.builder().cursor(nextCursor).count(count[0]).build();
+  }
+
+  /**
+   * Guard for the subject listing: only tenants that can read the resource see who else can
+   */
+  public void validateSubjectRead(Resource resource, String resourceId, HttpServletRequest httpServletRequest) {
+    validatePermission(httpServletRequest.getHeader(TENANT_ID), resourceId, resource, Permission.READ);
+  }
+
+  public void streamSubjects(Resource resource, String resourceId, Permission permission,
+                             Consumer<ResourceSubject> consumer) {
+    authorizationService.streamSubjects(resource, resourceId, permission, consumer);
+  }
+
+  /**
+   * Guard for the accessible-resources listing: the tenant only ever sees its own access,
+   * so only the page size is checked
+   */
+  public void validateAccessibleRead(Integer limit, HttpServletRequest httpServletRequest) {
+    if (StringUtils.isBlank(httpServletRequest.getHeader(TENANT_ID))) {
+      throw new ApiException(HttpStatus.BAD_REQUEST, "%s header is required.".formatted(TENANT_ID));
+    }
+    if (limit != null && (limit <= 0 || limit > accessibleMaxPageSize)) {
+      throw new ApiException(HttpStatus.BAD_REQUEST,
+        "limit must be between 1 and %d".formatted(accessibleMaxPageSize));
+    }
+  }
+
+  /**
+   * Streams one page of the resources of a type the tenant holds the permission on,
+   * ending with the cursor for the next page
+   */
+  public ContinuationToken streamAccessibleResources(Resource resource, Permission permission, String tenantId,
+                                                     Integer limit, String cursor,
+                                                     Consumer<AccessibleResource> consumer) {
+    long[] count = {0};
+    String nextCursor = authorizationService.lookupResources(resource, permission, Subject.TENANT, tenantId,
+      limit == null ? accessiblePageSize : limit, cursor, accessible -> {
+        consumer.accept(accessible);
+        count[0]++;
+      });
+    return ContinuationToken.builder().cursor(nextCursor).count(count[0]).build();
+  }
+
+  /**
+   * Deletes the resource's own relationships, which revokes access to it and everything below it
+   * at once. Descendants of a folder are then removed by a background job, whose id is returned;
+   * null for files.
+   */
+  public String deleteResource(Resource resource, String resourceId, HttpServletRequest httpServletRequest) {
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
     validatePermission(tenantId, resourceId, resource, Permission.DELETE);
     authorizationService.deleteRelationship(
       resource, resourceId);
+
+    if (resource != Resource.FOLDER) {
+      return null;
+    }
+    return subtreeDeleteService.start(resource, resourceId, tenantId, CallContext.currentZedToken()).getJobId();
+  }
+
+  public DeleteJob getDeleteJob(String jobId, HttpServletRequest httpServletRequest) {
+    return subtreeDeleteService.getJob(jobId, httpServletRequest.getHeader(TENANT_ID));
   }
 
-  public void grantPermission(PermissionAccessRequest request, HttpServletRequest httpServletRequest) {
+  public CompletableFuture<Void> grantPermission(PermissionAccessRequest request,
+                                                 HttpServletRequest httpServletRequest) {
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
     validateRelation(request.getRelation());
-    validatePermission(tenantId, request.getResourceId(),
-      request.getResource(), Permission.GRANT);
-
-    authorizationService.writeRelationship(
-      RelationshipOptions.builder()
-        .resource(request.getResource())
-        .resourceId(request.getResourceId())
-        .relation(request.getRelation())
-        .subject(Subject.TENANT)
-        .subjectId(request.getUserId())
-        .password(request.getPassword())
-        .daysFromNow(request.getDaysFromNow())
-        .build()
-    );
-
+    return validatePermissionAsync(tenantId, request.getResourceId(),
+      request.getResource(), Permission.GRANT)
+      .thenCompose(ignored -> authorizationService.writeRelationshipAsync(
+        RelationshipOptions.builder()
+          .resource(request.getResource())
+          .resourceId(request.getResourceId())
+          .relation(request.getRelation())
+          .subject(Subject.TENANT)
+          .subjectId(request.getUserId())
+          .password(request.getPassword())
+          .daysFromNow(request.getDaysFromNow())
+          .build()
+      ));
   }
 
-  public void revokePermission(PermissionAccessRequest request, HttpServletRequest httpServletRequest) {
+  public CompletableFuture<Void> revokePermission(PermissionAccessRequest request,
+                                                  HttpServletRequest httpServletRequest) {
     String tenantId = httpServletRequest.getHeader(TENANT_ID);
 
     validateRelation(request.getRelation());
-    validatePermission(tenantId, request.getResourceId(),
-      request.getResource(), Permission.REVOKE);
-
-    authorizationService.deleteRelationship(
-      request.getResource(), request.getResourceId(),
-      request.getRelation(), Subject.TENANT, request.getUserId());
+    return validatePermissionAsync(tenantId, request.getResourceId(),
+      request.getResource(), Permission.REVOKE)
+      .thenCompose(ignored -> authorizationService.deleteRelationshipAsync(
+        request.getResource(), request.getResourceId(),
+        request.getRelation(), Subject.TENANT, request.getUserId()));
   }
 
   private void validateRelation(Relation relation) {
@@ -134,5 +396,19 @@ public class ResourceService {
     }
   }
 
+  private CompletableFuture<Void> validatePermissionAsync(String subjectId, String resourceId,
+                                                          Resource resourceType, Permission permission) {
+    return authorizationService.checkPermissionAsync(PermissionOptions.builder()
+        .resource(resourceType).resourceId(resourceId)
+        .subject(Subject.TENANT).subjectId(subjectId)
+        .permission(permission).build())
+      .thenAccept(allowed -> {
+        if (!allowed) {
+          throw new ApiException(HttpStatus.FORBIDDEN,
+            "Subject does not have %s permission.".formatted(permission));
+        }
+      });
+  }
+
 
 }
@@ -0,0 +1,348 @@
+package com.access.control.service.services;
+
+import com.access.control.service.context.CallBudget;
+import com.access.control.service.context.CallContext;
+import com.access.control.service.dto.DeleteJob;
+import com.access.control.service.dto.RelationshipInfo;
+import com.access.control.service.enums.DeleteJobStatus;
+import com.access.control.service.enums.Direction;
+import com.access.control.service.enums.Relation;
+import com.access.control.service.enums.Resource;
+import com.access.control.service.exception.ApiException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static com.access.control.service.utils.FutureUtils.join;
+
+/**
+ * Removes the descendants of a deleted folder in the background. The walk is breadth-first:
+ * each node's children are queued before the node's own relationships are deleted in chunks.
+ * A child is found through its parent edge, which is only removed with the child, so the queue
+ * is checkpointed to a JSON file with a node's children before the node is deleted, and every
+ * step can be repeated safely. A child that also sits under another folder only loses its edge
+ * to the deleted one. Nodes are processed in batches: their edges are read concurrently and
+ * cached decisions are dropped once per batch. Unfinished jobs resume on startup.
+ */
+@Slf4j
+@Service
+public class SubtreeDeleteService {
+
+  // Nodes deleted between checkpoints and between drops of the cached decisions
+  private static final int BATCH_SIZE = 100;
+  private static final int READ_CONCURRENCY = 16;
+
+  private final AuthorizationService authorizationService;
+  private final ObjectMapper objectMapper;
+  private final Path directory;
+  private final int chunkSize;
+  private final Duration retention;
+
+  private final Map<String, DeleteJob> jobs = new ConcurrentHashMap<>();
+  // Fresh virtual threads, so a job never inherits the CallContext of the request that started it
+  private final ExecutorService jobExecutor =
+    Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("subtree-delete-", 0).factory());
+
+  public SubtreeDeleteService(AuthorizationService authorizationService,
+                              ObjectMapper objectMapper,
+                              @Value("${acl.delete-jobs.directory:${acl.data-directory:${user.home}/acl-project}/delete-jobs}")
+                              String directory,
+                              @Value("${acl.delete-jobs.chunk-size:1000}") int chunkSize,
+                              @Value("${acl.delete-jobs.retention-days:7}") int retentionDays) {
+    this.authorizationService = authorizationService;
+    this.objectMapper = objectMapper;
+    this.directory = Path.of(directory);
+    // Checkpoints are found again after a restart only if they do not depend on the working directory
+    if (!this.directory.isAbsolute()) {
+      throw new IllegalArgumentException("acl.delete-jobs.directory must be an absolute path: " + directory);
+    }
+    this.chunkSize = chunkSize;
+    this.retention = Duration.ofDays(retentionDays);
+  }
+
+  /**
+   * Starts deleting everything below the folder. Reads are made at least as fresh as zedToken,
+   * normally the revision at which the folder itself was deleted.
+   */
+  public DeleteJob start(Resource resource, String resourceId, String tenantId, String zedToken) {
+    Instant now = Instant.now();
+    DeleteJob job = DeleteJob.builder()
+      .jobId(UUID.randomUUID().toString())
+      .resource(resource).resourceId(resourceId)
+      .tenantId(tenantId)
+      .status(DeleteJobStatus.RUNNING)
+      .zedToken(zedToken)
+      .pending(new ArrayList<>(List.of(nodeKey(resource, resourceId))))
+      .nodesDeleted(0L).relationshipsDeleted(0L)
+      .createdAt(now).updatedAt(now)
+      .build();
+    save(job);
+    submit(job);
+    log.info("Started delete job {} for {}:{} by {}", job.getJobId(), resource, resourceId, tenantId);
+    return status(job);
+  }
+
+  /**
+   * Progress of a job, visible only to the tenant that started it
+   */
+  public DeleteJob getJob(String jobId, String tenantId) {
+    DeleteJob job = jobs.get(jobId);
+    if (job == null && isJobId(jobId)) {
+      job = load(directory.resolve(fileName(jobId)));
+    }
+    if (job == null || !Objects.equals(job.getTenantId(), tenantId)) {
+      throw new ApiException(HttpStatus.NOT_FOUND, "Delete job not found.");
+    }
+    return status(job);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void resume() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    Instant expiry = Instant.now().minus(retention);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+      for (Path file : files) {
+        DeleteJob job = load(file);
+        if (job == null) {
+          continue;
+        }
+        if (job.getStatus() == DeleteJobStatus.COMPLETED) {
+          if (job.getUpdatedAt().isBefore(expiry)) {
+            Files.deleteIfExists(file);
+          }
+          continue;
+        }
+        // Every step can be repeated, so failed jobs are retried as well
+        log.info("Resuming delete job {} with {} pending nodes", job.getJobId(), job.getPending().size());
+        synchronized (job) {
+          job.setStatus(DeleteJobStatus.RUNNING);
+          job.setError(null);
+        }
+        submit(job);
+      }
+    } catch (IOException e) {
+      log.error("Could not read delete jobs from {}", directory, e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    jobExecutor.shutdownNow();
+  }
+
+  private void submit(DeleteJob job) {
+    jobs.put(job.getJobId(), job);
+    jobExecutor.execute(() -> run(job));
+  }
+
+  private void run(DeleteJob job) {
+    CallContext context = new CallContext(new CallBudget(0, false), job.getZedToken());
+    try (CallContext.Scope ignored = context.attach()) {
+      Deque<String> queue;
+      synchronized (job) {
+        queue = new ArrayDeque<>(job.getPending());
+      }
+
+      while (!queue.isEmpty() && !Thread.currentThread().isInterrupted()) {
+        List<String> batch = queue.stream().limit(BATCH_SIZE).toList();
+        Set<String> batchKeys = Set.copyOf(batch);
+
+        // The children of the batch's folders, then the parents of those children, each in one wave
+        Map<String, List<RelationshipInfo>> childrenOf = readAll(batch.stream()
+          .filter(key -> key.startsWith(Resource.FOLDER.getWireName() + ":")).toList(), Direction.INCOMING);
+        Set<String> childKeys = new LinkedHashSet<>();
+        childrenOf.values().forEach(children -> children.forEach(child ->
+          childKeys.add(nodeKey(child.getResource(), child.getResourceId()))));
+        Map<String, List<RelationshipInfo>> parentsOf = readAll(List.copyOf(childKeys), Direction.OUTGOING);
+
+        // A child also under a folder outside the batch only loses its edges to the batch
+        Set<String> children = new LinkedHashSet<>();
+        List<RelationshipInfo> sharedEdges = new ArrayList<>();
+        parentsOf.forEach((childKey, parents) -> {
+          if (parents.stream().allMatch(parent -> batchKeys.contains(parentKey(parent)))) {
+            children.add(childKey);
+          } else {
+            parents.stream().filter(parent -> batchKeys.contains(parentKey(parent))).forEach(sharedEdges::add);
+          }
+        });
+        if (!children.isEmpty()) {
+          // Deleting the batch removes the only way back to its children, so they are saved first
+          List<String> pending = new ArrayList<>(queue);
+          pending.addAll(children);
+          checkpoint(job, context, pending);
+        }
+
+        long deleted = sharedEdges.size();
+        try {
+          authorizationService.deleteParentEdges(sharedEdges, chunkSize);
+          for (String key : batch) {
+            deleted += authorizationService.deleteRelationshipsInChunks(
+              Resource.fromWireName(key.substring(0, key.indexOf(':'))), key.substring(key.indexOf(':') + 1), chunkSize);
+          }
+        } finally {
+          // Cached decisions are dropped once per batch rather than once per node
+          authorizationService.invalidateDecisions();
+        }
+
+        batch.forEach(key -> queue.removeFirst());
+        queue.addAll(children);
+        synchronized (job) {
+          job.setNodesDeleted(job.getNodesDeleted() + batch.size());
+          job.setRelationshipsDeleted(job.getRelationshipsDeleted() + deleted);
+        }
+        checkpoint(job, context, new ArrayList<>(queue));
+      }
+
+      if (queue.isEmpty()) {
+        synchronized (job) {
+          job.setStatus(DeleteJobStatus.COMPLETED);
+        }
+        log.info("Delete job {} completed: {} nodes, {} relationships", job.getJobId(),
+          job.getNodesDeleted(), job.getRelationshipsDeleted());
+      }
+      checkpoint(job, context, new ArrayList<>(queue));
+    } catch (RuntimeException e) {
+      log.error("Delete job {} failed", job.getJobId(), e);
+      synchronized (job) {
+        job.setStatus(DeleteJobStatus.FAILED);
+        job.setError(e.getMessage());
+        job.setUpdatedAt(Instant.now());
+      }
+      save(job);
+    } finally {
+      // The saved file answers status requests from here on
+      jobs.remove(job.getJobId());
+    }
+  }
+
+  /**
+   * Reads the PARENT edges of every node in the given direction, at most READ_CONCURRENCY at a
+   * time, with the job's CallContext so the reads see the job's own deletes
+   */
+  private Map<String, List<RelationshipInfo>> readAll(List<String> keys, Direction direction) {
+    CallContext context = CallContext.current();
+    Semaphore permits = new Semaphore(READ_CONCURRENCY);
+    Map<String, CompletableFuture<List<RelationshipInfo>>> futures = new LinkedHashMap<>();
+    for (String key : keys) {
+      Resource resource = Resource.fromWireName(key.substring(0, key.indexOf(':')));
+      String resourceId = key.substring(key.indexOf(':') + 1);
+      futures.put(key, CompletableFuture.supplyAsync(() -> {
+        permits.acquireUninterruptibly();
+        try (CallContext.Scope ignored = context.attach()) {
+          return direction == Direction.INCOMING
+            ? authorizationService.getIncomingRelations(resource, resourceId, Relation.PARENT)
+            : authorizationService.getOutgoingRelations(resource, resourceId, Relation.PARENT);
+        } finally {
+          permits.release();
+        }
+      }, jobExecutor));
+    }
+    Map<String, List<RelationshipInfo>> relations = new LinkedHashMap<>();
+    futures.forEach((key, future) -> relations.put(key, join(future)));
+    return relations;
+  }
+
+  private static String parentKey(RelationshipInfo edge) {
+    return nodeKey(edge.getToResource(), edge.getToResourceId());
+  }
+
+  /**
+   * Saves the pending queue with the latest token the job wrote at, so a resumed job still sees
+   * the parent edges it already removed
+   */
+  private void checkpoint(DeleteJob job, CallContext context, List<String> pending) {
+    synchronized (job) {
+      job.setPending(pending);
+      job.setZedToken(context.getZedToken());
+      job.setUpdatedAt(Instant.now());
+    }
+    save(job);
+  }
+
+  private DeleteJob status(DeleteJob job) {
+    synchronized (job) {
+      return job.toBuilder()
+        .pending(null)
+        .pendingNodes(job.getPending().size())
+        .zedToken(null)
+        .build();
+    }
+  }
+
+  /**
+   * Writes the job through a temporary file, so a crash never leaves a half-written checkpoint
+   */
+  private void save(DeleteJob job) {
+    try {
+      Files.createDirectories(directory);
+      Path temp = directory.resolve(fileName(job.getJobId()) + ".tmp");
+      synchronized (job) {
+        objectMapper.writeValue(temp.toFile(), job);
+      }
+      Files.move(temp, directory.resolve(fileName(job.getJobId())),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private DeleteJob load(Path file) {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(file.toFile(), DeleteJob.class);
+    } catch (IOException e) {
+      log.warn("Skipping unreadable delete job {}", file, e);
+      return null;
+    }
+  }
+
+  private static String fileName(String jobId) {
+    return jobId + ".json";
+  }
+
+  // Job ids are UUIDs, so a path from the request can never leave the jobs directory
+  private static boolean isJobId(String jobId) {
+    try {
+      return UUID.fromString(jobId).toString().equals(jobId);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static String nodeKey(Resource resource, String resourceId) {
+    return resource.getWireName() + ":" + resourceId;
+  }
+}
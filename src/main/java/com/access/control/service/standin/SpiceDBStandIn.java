@@ -0,0 +1,76 @@
+package com.access.control.service.standin;
+
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessServerBuilder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process replacement for SpiceDB, for running and load-testing the service without one.
+ * Enabled with the spicedb-standin profile, in which SpiceDBConfig connects to it instead of
+ * spicedb.host. Every call is delayed by spicedb.standin.latency-micros to model the network
+ * and SpiceDB's own evaluation time. spicedb.standin.slow-call-percent of the calls are delayed by
+ * spicedb.standin.slow-latency-micros instead, to model a slow SpiceDB node.
+ */
+@Slf4j
+@Component
+@Profile(SpiceDBStandIn.PROFILE)
+public class SpiceDBStandIn {
+
+  public static final String PROFILE = "spicedb-standin";
+
+  private final String name = InProcessServerBuilder.generateName();
+  private final Server server;
+
+  public SpiceDBStandIn(@Value("${spicedb.standin.latency-micros:0}") long latencyMicros,
+                        @Value("${spicedb.standin.slow-call-percent:0}") int slowCallPercent,
+                        @Value("${spicedb.standin.slow-latency-micros:0}") long slowLatencyMicros) throws IOException {
+    StandInGraph graph = new StandInGraph();
+    ServerInterceptor latency = new LatencyInterceptor(TimeUnit.MICROSECONDS.toNanos(latencyMicros),
+      slowCallPercent, TimeUnit.MICROSECONDS.toNanos(slowLatencyMicros));
+    this.server = InProcessServerBuilder.forName(name)
+      .addService(ServerInterceptors.intercept(new StandInPermissionsService(graph), latency))
+      .addService(ServerInterceptors.intercept(new StandInSchemaService(graph), latency))
+      .addService(new StandInWatchService(graph))
+      .build()
+      .start();
+    log.info("SpiceDB stand-in started as in-process server {} with {}us latency, {}% of calls {}us",
+      name, latencyMicros, slowCallPercent, slowLatencyMicros);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    server.shutdownNow();
+  }
+
+  private record LatencyInterceptor(long latencyNanos, int slowCallPercent, long slowLatencyNanos)
+    implements ServerInterceptor {
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+      long delayNanos = ThreadLocalRandom.current().nextInt(100) < slowCallPercent ? slowLatencyNanos : latencyNanos;
+      if (delayNanos > 0) {
+        LockSupport.parkNanos(delayNanos);
+      }
+      return next.startCall(call, headers);
+    }
+  }
+}
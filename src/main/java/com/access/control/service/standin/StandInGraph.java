@@ -0,0 +1,496 @@
+package com.access.control.service.standin;
+
+import com.authzed.api.v1.ObjectReference;
+import com.authzed.api.v1.Relationship;
+import com.authzed.api.v1.RelationshipFilter;
+import com.authzed.api.v1.RelationshipUpdate;
+import com.authzed.api.v1.SubjectFilter;
+import com.authzed.api.v1.SubjectReference;
+import com.authzed.api.v1.WatchResponse;
+import com.authzed.api.v1.ZedToken;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.access.control.service.utils.constants.CAVEAT_KEY;
+import static com.access.control.service.utils.constants.CAVEAT_NAME;
+import static com.access.control.service.utils.constants.CAVEAT_SUPPLIED_KEY;
+
+/**
+ * In-memory relationship store that evaluates the permissions of files_schema.zed:
+ * owner/editor/viewer relations, group#member subjects, parent->write and parent->read
+ * recursion, the password_match caveat and relationship expiration. Every write is one
+ * revision, and the change log feeds Watch subscribers.
+ */
+class StandInGraph {
+
+  static final int NO_PERMISSION = 0;
+  static final int CONDITIONAL_PERMISSION = 1;
+  static final int HAS_PERMISSION = 2;
+
+  private static final String OWNER = "owner";
+  private static final String EDITOR = "editor";
+  private static final String VIEWER = "viewer";
+  private static final String PARENT = "parent";
+  private static final String READ = "read";
+  private static final String WRITE = "write";
+
+  private static final Comparator<Relationship> ORDER = Comparator.comparing(StandInGraph::cursorOf);
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  // Keyed by relationship identity, i.e. without caveat and expiration
+  private final Map<Relationship, Relationship> relationships = new HashMap<>();
+  private final Map<ObjectReference, Set<Relationship>> byResource = new HashMap<>();
+  private final Map<ObjectReference, Set<Relationship>> bySubject = new HashMap<>();
+  private final List<WatchResponse> changeLog = new ArrayList<>();
+  private final List<Watcher> watchers = new ArrayList<>();
+  private long revision;
+
+  ZedToken revision() {
+    lock.readLock().lock();
+    try {
+      return token(revision);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Applies the updates atomically. CREATE fails on an existing relationship and the same
+   * relationship may not be updated twice in one call, as in SpiceDB.
+   */
+  ZedToken write(List<RelationshipUpdate> updates) {
+    Set<Relationship> seen = new HashSet<>();
+    for (RelationshipUpdate update : updates) {
+      if (!seen.add(identity(update.getRelationship()))) {
+        throw Status.INVALID_ARGUMENT
+          .withDescription("found duplicate update for relationship " + cursorOf(update.getRelationship()))
+          .asRuntimeException();
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      for (RelationshipUpdate update : updates) {
+        if (update.getOperation() == RelationshipUpdate.Operation.OPERATION_CREATE
+          && relationships.containsKey(identity(update.getRelationship()))) {
+          throw Status.ALREADY_EXISTS
+            .withDescription("relationship already exists: " + cursorOf(update.getRelationship()))
+            .asRuntimeException();
+        }
+      }
+
+      List<RelationshipUpdate> applied = new ArrayList<>(updates.size());
+      for (RelationshipUpdate update : updates) {
+        Relationship relationship = update.getRelationship();
+        if (update.getOperation() == RelationshipUpdate.Operation.OPERATION_DELETE) {
+          Relationship removed = remove(identity(relationship));
+          if (removed != null) {
+            applied.add(RelationshipUpdate.newBuilder(update).setRelationship(removed).build());
+          }
+        } else {
+          put(relationship);
+          applied.add(update);
+        }
+      }
+      return commit(applied);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Deletes matching relationships, at most limit of them when limit is positive.
+   * Returns the revision and whether every match was deleted.
+   */
+  DeleteResult delete(RelationshipFilter filter, int limit, boolean allowPartial) {
+    lock.writeLock().lock();
+    try {
+      List<Relationship> matches = find(filter);
+      if (limit > 0 && matches.size() > limit && !allowPartial) {
+        throw Status.FAILED_PRECONDITION
+          .withDescription("found more than %d relationships to delete".formatted(limit))
+          .asRuntimeException();
+      }
+      List<Relationship> deleted = limit > 0 && matches.size() > limit ? matches.subList(0, limit) : matches;
+
+      List<RelationshipUpdate> applied = new ArrayList<>(deleted.size());
+      for (Relationship relationship : deleted) {
+        remove(identity(relationship));
+        applied.add(RelationshipUpdate.newBuilder()
+          .setOperation(RelationshipUpdate.Operation.OPERATION_DELETE)
+          .setRelationship(relationship)
+          .build());
+      }
+      return new DeleteResult(commit(applied), deleted.size(), deleted.size() == matches.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Creates all relationships in one revision, failing if any of them already exists
+   */
+  long importRelationships(List<Relationship> imported) {
+    List<RelationshipUpdate> updates = new ArrayList<>(imported.size());
+    for (Relationship relationship : imported) {
+      updates.add(RelationshipUpdate.newBuilder()
+        .setOperation(RelationshipUpdate.Operation.OPERATION_CREATE)
+        .setRelationship(relationship)
+        .build());
+    }
+    write(updates);
+    return imported.size();
+  }
+
+  /**
+   * Matching relationships in a stable order, starting after the cursor when given
+   */
+  List<Relationship> read(RelationshipFilter filter, String afterCursor, int limit) {
+    lock.readLock().lock();
+    try {
+      List<Relationship> page = new ArrayList<>();
+      for (Relationship relationship : find(filter)) {
+        if (afterCursor != null && cursorOf(relationship).compareTo(afterCursor) <= 0) {
+          continue;
+        }
+        page.add(relationship);
+        if (limit > 0 && page.size() == limit) {
+          break;
+        }
+      }
+      return page;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  int check(ObjectReference resource, String permission, ObjectReference subject, Struct context) {
+    lock.readLock().lock();
+    try {
+      return check(resource, permission, subject, context, new HashSet<>());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Subjects of the given type holding the permission, with their permissionship
+   */
+  Map<String, Integer> lookupSubjects(ObjectReference resource, String permission, String subjectType,
+                                      Struct context) {
+    lock.readLock().lock();
+    try {
+      Map<String, Integer> subjects = new LinkedHashMap<>();
+      for (ObjectReference candidate : objectsOfType(bySubject, subjectType)) {
+        int permissionship = check(resource, permission, candidate, context, new HashSet<>());
+        if (permissionship != NO_PERMISSION) {
+          subjects.put(candidate.getObjectId(), permissionship);
+        }
+      }
+      return subjects;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Resources of the given type on which the subject holds the permission, with their permissionship
+   */
+  Map<String, Integer> lookupResources(String resourceType, String permission, ObjectReference subject,
+                                       Struct context) {
+    lock.readLock().lock();
+    try {
+      Map<String, Integer> resources = new LinkedHashMap<>();
+      for (ObjectReference candidate : objectsOfType(byResource, resourceType)) {
+        int permissionship = check(candidate, permission, subject, context, new HashSet<>());
+        if (permissionship != NO_PERMISSION) {
+          resources.put(candidate.getObjectId(), permissionship);
+        }
+      }
+      return resources;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Replays the changes after the start revision, then streams new ones as they are written
+   */
+  void watch(ZedToken start, Set<String> objectTypes, StreamObserver<WatchResponse> observer) {
+    lock.writeLock().lock();
+    try {
+      Watcher watcher = new Watcher(objectTypes, observer);
+      long from = start == null || start.getToken().isEmpty() ? revision : Long.parseLong(start.getToken());
+      for (int i = (int) from; i < changeLog.size(); i++) {
+        watcher.send(changeLog.get(i));
+      }
+      watchers.add(watcher);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void unwatch(StreamObserver<WatchResponse> observer) {
+    lock.writeLock().lock();
+    try {
+      watchers.removeIf(watcher -> watcher.observer == observer);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private int check(ObjectReference resource, String permission, ObjectReference subject, Struct context,
+                    Set<String> visiting) {
+    // A parent cycle contributes nothing
+    String visit = objectKey(resource) + "#" + permission;
+    if (!visiting.add(visit)) {
+      return NO_PERMISSION;
+    }
+    try {
+      return switch (permission) {
+        case "delete", "grant", "revoke" -> relation(resource, OWNER, subject, context, visiting);
+        case WRITE -> any(
+          relation(resource, OWNER, subject, context, visiting),
+          () -> relation(resource, EDITOR, subject, context, visiting),
+          () -> arrow(resource, WRITE, subject, context, visiting));
+        case READ -> any(
+          relation(resource, VIEWER, subject, context, visiting),
+          () -> check(resource, WRITE, subject, context, visiting),
+          () -> arrow(resource, READ, subject, context, visiting));
+        default -> relation(resource, permission, subject, context, visiting);
+      };
+    } finally {
+      visiting.remove(visit);
+    }
+  }
+
+  private int relation(ObjectReference resource, String relation, ObjectReference subject, Struct context,
+                       Set<String> visiting) {
+    int result = NO_PERMISSION;
+    for (Relationship relationship : byResource.getOrDefault(resource, Set.of())) {
+      if (!relation.equals(relationship.getRelation()) || isExpired(relationship)) {
+        continue;
+      }
+      SubjectReference holder = relationship.getSubject();
+      int reached = holder.getOptionalRelation().isEmpty()
+        ? (holder.getObject().equals(subject) ? HAS_PERMISSION : NO_PERMISSION)
+        // Subject sets such as group#member
+        : relation(holder.getObject(), holder.getOptionalRelation(), subject, context, visiting);
+      result = Math.max(result, Math.min(reached, caveat(relationship, context)));
+      if (result == HAS_PERMISSION) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  private int arrow(ObjectReference resource, String permission, ObjectReference subject, Struct context,
+                    Set<String> visiting) {
+    int result = NO_PERMISSION;
+    for (Relationship relationship : byResource.getOrDefault(resource, Set.of())) {
+      if (!PARENT.equals(relationship.getRelation()) || isExpired(relationship)) {
+        continue;
+      }
+      result = Math.max(result, check(relationship.getSubject().getObject(), permission, subject, context, visiting));
+      if (result == HAS_PERMISSION) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  private static int any(int first, PermissionshipSupplier... rest) {
+    int result = first;
+    for (PermissionshipSupplier next : rest) {
+      if (result == HAS_PERMISSION) {
+        break;
+      }
+      result = Math.max(result, next.get());
+    }
+    return result;
+  }
+
+  private static int caveat(Relationship relationship, Struct context) {
+    if (!relationship.hasOptionalCaveat()) {
+      return HAS_PERMISSION;
+    }
+    if (!CAVEAT_NAME.equals(relationship.getOptionalCaveat().getCaveatName())) {
+      return CONDITIONAL_PERMISSION;
+    }
+    Value password = relationship.getOptionalCaveat().getContext().getFieldsMap().get(CAVEAT_KEY);
+    Value supplied = context.getFieldsMap().get(CAVEAT_SUPPLIED_KEY);
+    if (password == null || supplied == null) {
+      return CONDITIONAL_PERMISSION;
+    }
+    return password.getStringValue().equals(supplied.getStringValue()) ? HAS_PERMISSION : NO_PERMISSION;
+  }
+
+  private static boolean isExpired(Relationship relationship) {
+    return relationship.hasOptionalExpiresAt()
+      && Instant.ofEpochSecond(relationship.getOptionalExpiresAt().getSeconds(),
+          relationship.getOptionalExpiresAt().getNanos()).isBefore(Instant.now());
+  }
+
+  private List<Relationship> find(RelationshipFilter filter) {
+    Iterable<Relationship> candidates;
+    if (!filter.getResourceType().isEmpty() && !filter.getOptionalResourceId().isEmpty()) {
+      candidates = byResource.getOrDefault(objectReference(filter.getResourceType(),
+        filter.getOptionalResourceId()), Set.of());
+    } else if (filter.hasOptionalSubjectFilter()
+      && !filter.getOptionalSubjectFilter().getOptionalSubjectId().isEmpty()) {
+      SubjectFilter subjectFilter = filter.getOptionalSubjectFilter();
+      candidates = bySubject.getOrDefault(objectReference(subjectFilter.getSubjectType(),
+        subjectFilter.getOptionalSubjectId()), Set.of());
+    } else {
+      candidates = relationships.keySet();
+    }
+
+    List<Relationship> matches = new ArrayList<>();
+    for (Relationship key : candidates) {
+      if (matches(filter, key)) {
+        matches.add(relationships.get(key));
+      }
+    }
+    matches.sort(ORDER);
+    return matches;
+  }
+
+  private static boolean matches(RelationshipFilter filter, Relationship relationship) {
+    ObjectReference resource = relationship.getResource();
+    if (!filter.getResourceType().isEmpty() && !filter.getResourceType().equals(resource.getObjectType())) {
+      return false;
+    }
+    if (!filter.getOptionalResourceId().isEmpty() && !filter.getOptionalResourceId().equals(resource.getObjectId())) {
+      return false;
+    }
+    if (!filter.getOptionalResourceIdPrefix().isEmpty()
+      && !resource.getObjectId().startsWith(filter.getOptionalResourceIdPrefix())) {
+      return false;
+    }
+    if (!filter.getOptionalRelation().isEmpty() && !filter.getOptionalRelation().equals(relationship.getRelation())) {
+      return false;
+    }
+    if (filter.hasOptionalSubjectFilter()) {
+      SubjectFilter subjectFilter = filter.getOptionalSubjectFilter();
+      SubjectReference subject = relationship.getSubject();
+      if (!subjectFilter.getSubjectType().equals(subject.getObject().getObjectType())) {
+        return false;
+      }
+      if (!subjectFilter.getOptionalSubjectId().isEmpty()
+        && !subjectFilter.getOptionalSubjectId().equals(subject.getObject().getObjectId())) {
+        return false;
+      }
+      if (subjectFilter.hasOptionalRelation()
+        && !subjectFilter.getOptionalRelation().getRelation().equals(subject.getOptionalRelation())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void put(Relationship relationship) {
+    Relationship key = identity(relationship);
+    relationships.put(key, relationship);
+    byResource.computeIfAbsent(key.getResource(), k -> new HashSet<>()).add(key);
+    bySubject.computeIfAbsent(key.getSubject().getObject(), k -> new HashSet<>()).add(key);
+  }
+
+  private Relationship remove(Relationship key) {
+    Relationship removed = relationships.remove(key);
+    if (removed != null) {
+      byResource.get(key.getResource()).remove(key);
+      bySubject.get(key.getSubject().getObject()).remove(key);
+    }
+    return removed;
+  }
+
+  private ZedToken commit(List<RelationshipUpdate> applied) {
+    revision++;
+    WatchResponse change = WatchResponse.newBuilder()
+      .addAllUpdates(applied)
+      .setChangesThrough(token(revision))
+      .build();
+    changeLog.add(change);
+
+    List<Watcher> failed = new ArrayList<>();
+    for (Watcher watcher : watchers) {
+      try {
+        watcher.send(change);
+      } catch (RuntimeException e) {
+        failed.add(watcher);
+      }
+    }
+    watchers.removeAll(failed);
+    return token(revision);
+  }
+
+  private static List<ObjectReference> objectsOfType(Map<ObjectReference, Set<Relationship>> index,
+                                                     String objectType) {
+    return index.entrySet().stream()
+      .filter(entry -> entry.getKey().getObjectType().equals(objectType) && !entry.getValue().isEmpty())
+      .map(Map.Entry::getKey)
+      .sorted(Comparator.comparing(ObjectReference::getObjectId))
+      .toList();
+  }
+
+  private static Relationship identity(Relationship relationship) {
+    return Relationship.newBuilder()
+      .setResource(relationship.getResource())
+      .setRelation(relationship.getRelation())
+      .setSubject(relationship.getSubject())
+      .build();
+  }
+
+  private static ObjectReference objectReference(String type, String id) {
+    return ObjectReference.newBuilder().setObjectType(type).setObjectId(id).build();
+  }
+
+  private static String objectKey(ObjectReference object) {
+    return object.getObjectType() + ":" + object.getObjectId();
+  }
+
+  static String cursorOf(Relationship relationship) {
+    SubjectReference subject = relationship.getSubject();
+    return objectKey(relationship.getResource()) + "#" + relationship.getRelation() + "@"
+      + objectKey(subject.getObject()) + "#" + subject.getOptionalRelation();
+  }
+
+  private static ZedToken token(long revision) {
+    return ZedToken.newBuilder().setToken(Long.toString(revision)).build();
+  }
+
+  record DeleteResult(ZedToken deletedAt, long deleted, boolean complete) {
+  }
+
+  @FunctionalInterface
+  private interface PermissionshipSupplier {
+    int get();
+  }
+
+  private record Watcher(Set<String> objectTypes, StreamObserver<WatchResponse> observer) {
+
+    void send(WatchResponse change) {
+      List<RelationshipUpdate> updates = change.getUpdatesList().stream()
+        .filter(update -> objectTypes.isEmpty()
+          || objectTypes.contains(update.getRelationship().getResource().getObjectType()))
+        .toList();
+      observer.onNext(WatchResponse.newBuilder()
+        .addAllUpdates(updates)
+        .setChangesThrough(change.getChangesThrough())
+        .build());
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package com.access.control.service.standin;
+
+import com.authzed.api.v1.CheckBulkPermissionsPair;
+import com.authzed.api.v1.CheckBulkPermissionsRequest;
+import com.authzed.api.v1.CheckBulkPermissionsRequestItem;
+import com.authzed.api.v1.CheckBulkPermissionsResponse;
+import com.authzed.api.v1.CheckBulkPermissionsResponseItem;
+import com.authzed.api.v1.CheckPermissionRequest;
+import com.authzed.api.v1.CheckPermissionResponse;
+import com.authzed.api.v1.Cursor;
+import com.authzed.api.v1.DeleteRelationshipsRequest;
+import com.authzed.api.v1.DeleteRelationshipsResponse;
+import com.authzed.api.v1.ExportBulkRelationshipsRequest;
+import com.authzed.api.v1.ExportBulkRelationshipsResponse;
+import com.authzed.api.v1.ImportBulkRelationshipsRequest;
+import com.authzed.api.v1.ImportBulkRelationshipsResponse;
+import com.authzed.api.v1.LookupPermissionship;
+import com.authzed.api.v1.LookupResourcesRequest;
+import com.authzed.api.v1.LookupResourcesResponse;
+import com.authzed.api.v1.LookupSubjectsRequest;
+import com.authzed.api.v1.LookupSubjectsResponse;
+import com.authzed.api.v1.PermissionsServiceGrpc;
+import com.authzed.api.v1.ReadRelationshipsRequest;
+import com.authzed.api.v1.ReadRelationshipsResponse;
+import com.authzed.api.v1.Relationship;
+import com.authzed.api.v1.ResolvedSubject;
+import com.authzed.api.v1.WriteRelationshipsRequest;
+import com.authzed.api.v1.WriteRelationshipsResponse;
+import com.authzed.api.v1.ZedToken;
+import com.google.protobuf.Struct;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PermissionsService API served from a StandInGraph. Consistency requirements are ignored:
+ * every call sees the latest revision.
+ */
+@RequiredArgsConstructor
+class StandInPermissionsService extends PermissionsServiceGrpc.PermissionsServiceImplBase {
+
+  private static final int EXPORT_PAGE_SIZE = 1000;
+
+  private final StandInGraph graph;
+
+  @Override
+  public void checkPermission(CheckPermissionRequest request,
+                              StreamObserver<CheckPermissionResponse> responseObserver) {
+    int permissionship = graph.check(request.getResource(), request.getPermission(),
+      request.getSubject().getObject(), request.getContext());
+    responseObserver.onNext(CheckPermissionResponse.newBuilder()
+      .setCheckedAt(graph.revision())
+      .setPermissionship(permissionship(permissionship))
+      .build());
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void checkBulkPermissions(CheckBulkPermissionsRequest request,
+                                   StreamObserver<CheckBulkPermissionsResponse> responseObserver) {
+    CheckBulkPermissionsResponse.Builder response = CheckBulkPermissionsResponse.newBuilder()
+      .setCheckedAt(graph.revision());
+    for (CheckBulkPermissionsRequestItem item : request.getItemsList()) {
+      int permissionship = graph.check(item.getResource(), item.getPermission(),
+        item.getSubject().getObject(), item.getContext());
+      response.addPairs(CheckBulkPermissionsPair.newBuilder()
+        .setRequest(item)
+        .setItem(CheckBulkPermissionsResponseItem.newBuilder()
+          .setPermissionship(permissionship(permissionship))));
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void writeRelationships(WriteRelationshipsRequest request,
+                                 StreamObserver<WriteRelationshipsResponse> responseObserver) {
+    try {
+      ZedToken writtenAt = graph.write(request.getUpdatesList());
+      responseObserver.onNext(WriteRelationshipsResponse.newBuilder().setWrittenAt(writtenAt).build());
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      responseObserver.onError(e);
+    }
+  }
+
+  @Override
+  public void deleteRelationships(DeleteRelationshipsRequest request,
+                                  StreamObserver<DeleteRelationshipsResponse> responseObserver) {
+    try {
+      StandInGraph.DeleteResult result = graph.delete(request.getRelationshipFilter(),
+        request.getOptionalLimit(), request.getOptionalAllowPartialDeletions());
+      responseObserver.onNext(DeleteRelationshipsResponse.newBuilder()
+        .setDeletedAt(result.deletedAt())
+        .setRelationshipsDeletedCount(result.deleted())
+        .setDeletionProgress(result.complete()
+          ? DeleteRelationshipsResponse.DeletionProgress.DELETION_PROGRESS_COMPLETE
+          : DeleteRelationshipsResponse.DeletionProgress.DELETION_PROGRESS_PARTIAL)
+        .build());
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      responseObserver.onError(e);
+    }
+  }
+
+  @Override
+  public void readRelationships(ReadRelationshipsRequest request,
+                                StreamObserver<ReadRelationshipsResponse> responseObserver) {
+    ZedToken readAt = graph.revision();
+    String after = request.hasOptionalCursor() ? request.getOptionalCursor().getToken() : null;
+    for (Relationship relationship : graph.read(request.getRelationshipFilter(), after, request.getOptionalLimit())) {
+      responseObserver.onNext(ReadRelationshipsResponse.newBuilder()
+        .setReadAt(readAt)
+        .setRelationship(relationship)
+        .setAfterResultCursor(Cursor.newBuilder().setToken(StandInGraph.cursorOf(relationship)))
+        .build());
+    }
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void lookupSubjects(LookupSubjectsRequest request,
+                             StreamObserver<LookupSubjectsResponse> responseObserver) {
+    ZedToken lookedUpAt = graph.revision();
+    Map<String, Integer> subjects = graph.lookupSubjects(request.getResource(), request.getPermission(),
+      request.getSubjectObjectType(), request.getContext());
+    subjects.forEach((subjectId, permissionship) -> responseObserver.onNext(LookupSubjectsResponse.newBuilder()
+      .setLookedUpAt(lookedUpAt)
+      .setSubject(ResolvedSubject.newBuilder()
+        .setSubjectObjectId(subjectId)
+        .setPermissionship(lookupPermissionship(permissionship)))
+      .build()));
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void lookupResources(LookupResourcesRequest request,
+                              StreamObserver<LookupResourcesResponse> responseObserver) {
+    ZedToken lookedUpAt = graph.revision();
+    String after = request.hasOptionalCursor() ? request.getOptionalCursor().getToken() : null;
+    int sent = 0;
+    for (Map.Entry<String, Integer> resource : graph.lookupResources(request.getResourceObjectType(),
+      request.getPermission(), request.getSubject().getObject(), request.getContext()).entrySet()) {
+      if (after != null && resource.getKey().compareTo(after) <= 0) {
+        continue;
+      }
+      responseObserver.onNext(LookupResourcesResponse.newBuilder()
+        .setLookedUpAt(lookedUpAt)
+        .setResourceObjectId(resource.getKey())
+        .setPermissionship(lookupPermissionship(resource.getValue()))
+        .setAfterResultCursor(Cursor.newBuilder().setToken(resource.getKey()))
+        .build());
+      if (request.getOptionalLimit() > 0 && ++sent == request.getOptionalLimit()) {
+        break;
+      }
+    }
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public StreamObserver<ImportBulkRelationshipsRequest> importBulkRelationships(
+    StreamObserver<ImportBulkRelationshipsResponse> responseObserver) {
+    List<Relationship> imported = new ArrayList<>();
+    return new StreamObserver<>() {
+      @Override
+      public void onNext(ImportBulkRelationshipsRequest request) {
+        imported.addAll(request.getRelationshipsList());
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        // The client aborted, nothing was committed
+      }
+
+      @Override
+      public void onCompleted() {
+        try {
+          long loaded = graph.importRelationships(imported);
+          responseObserver.onNext(ImportBulkRelationshipsResponse.newBuilder().setNumLoaded(loaded).build());
+          responseObserver.onCompleted();
+        } catch (StatusRuntimeException e) {
+          responseObserver.onError(e);
+        }
+      }
+    };
+  }
+
+  @Override
+  public void exportBulkRelationships(ExportBulkRelationshipsRequest request,
+                                      StreamObserver<ExportBulkRelationshipsResponse> responseObserver) {
+    String after = request.hasOptionalCursor() ? request.getOptionalCursor().getToken() : null;
+    List<Relationship> relationships = graph.read(request.getOptionalRelationshipFilter(), after,
+      request.getOptionalLimit());
+    for (int from = 0; from < relationships.size(); from += EXPORT_PAGE_SIZE) {
+      List<Relationship> page = relationships.subList(from, Math.min(from + EXPORT_PAGE_SIZE, relationships.size()));
+      responseObserver.onNext(ExportBulkRelationshipsResponse.newBuilder()
+        .addAllRelationships(page)
+        .setAfterResultCursor(Cursor.newBuilder().setToken(StandInGraph.cursorOf(page.get(page.size() - 1))))
+        .build());
+    }
+    responseObserver.onCompleted();
+  }
+
+  private static CheckPermissionResponse.Permissionship permissionship(int permissionship) {
+    return switch (permissionship) {
+      case StandInGraph.HAS_PERMISSION -> CheckPermissionResponse.Permissionship.PERMISSIONSHIP_HAS_PERMISSION;
+      case StandInGraph.CONDITIONAL_PERMISSION ->
+        CheckPermissionResponse.Permissionship.PERMISSIONSHIP_CONDITIONAL_PERMISSION;
+      default -> CheckPermissionResponse.Permissionship.PERMISSIONSHIP_NO_PERMISSION;
+    };
+  }
+
+  private static LookupPermissionship lookupPermissionship(int permissionship) {
+    return permissionship == StandInGraph.HAS_PERMISSION
+      ? LookupPermissionship.LOOKUP_PERMISSIONSHIP_HAS_PERMISSION
+      : LookupPermissionship.LOOKUP_PERMISSIONSHIP_CONDITIONAL_PERMISSION;
+  }
+}
@@ -0,0 +1,41 @@
+package com.access.control.service.standin;
+
+import com.authzed.api.v1.ReadSchemaRequest;
+import com.authzed.api.v1.ReadSchemaResponse;
+import com.authzed.api.v1.SchemaServiceGrpc;
+import com.authzed.api.v1.WriteSchemaRequest;
+import com.authzed.api.v1.WriteSchemaResponse;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the written schema text only; StandInGraph always evaluates files_schema.zed
+ */
+@RequiredArgsConstructor
+class StandInSchemaService extends SchemaServiceGrpc.SchemaServiceImplBase {
+
+  private final StandInGraph graph;
+
+  private volatile String schema;
+
+  @Override
+  public void writeSchema(WriteSchemaRequest request, StreamObserver<WriteSchemaResponse> responseObserver) {
+    schema = request.getSchema();
+    responseObserver.onNext(WriteSchemaResponse.newBuilder().setWrittenAt(graph.revision()).build());
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void readSchema(ReadSchemaRequest request, StreamObserver<ReadSchemaResponse> responseObserver) {
+    if (schema == null) {
+      responseObserver.onError(Status.NOT_FOUND.withDescription("No schema has been defined").asRuntimeException());
+      return;
+    }
+    responseObserver.onNext(ReadSchemaResponse.newBuilder()
+      .setSchemaText(schema)
+      .setReadAt(graph.revision())
+      .build());
+    responseObserver.onCompleted();
+  }
+}
@@ -0,0 +1,24 @@
+package com.access.control.service.standin;
+
+import com.authzed.api.v1.WatchRequest;
+import com.authzed.api.v1.WatchResponse;
+import com.authzed.api.v1.WatchServiceGrpc;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashSet;
+
+@RequiredArgsConstructor
+class StandInWatchService extends WatchServiceGrpc.WatchServiceImplBase {
+
+  private final StandInGraph graph;
+
+  @Override
+  public void watch(WatchRequest request, StreamObserver<WatchResponse> responseObserver) {
+    ((ServerCallStreamObserver<WatchResponse>) responseObserver)
+      .setOnCancelHandler(() -> graph.unwatch(responseObserver));
+    graph.watch(request.hasOptionalStartCursor() ? request.getOptionalStartCursor() : null,
+      new HashSet<>(request.getOptionalObjectTypesList()), responseObserver);
+  }
+}
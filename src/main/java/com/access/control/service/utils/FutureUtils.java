@@ -0,0 +1,50 @@
+package com.access.control.service.utils;
+
+import com.access.control.service.context.CallContext;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class FutureUtils {
+
+  private FutureUtils() {
+  }
+
+  /**
+   * Waits for the future, rethrowing the original runtime exception instead of a CompletionException
+   */
+  public static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Completes on the gRPC callback thread with the caller's CallContext, so calls chained onto
+   * the result are still charged to the same request
+   */
+  public static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    CallContext context = CallContext.current();
+    Futures.addCallback(listenableFuture, new FutureCallback<>() {
+      @Override
+      public void onSuccess(T result) {
+        future.complete(result);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }, command -> CallContext.runWith(context, command));
+    return future;
+  }
+}
@@ -0,0 +1,31 @@
+package com.access.control.service.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes one JSON document per line to a streamed response, flushing each line to the client
+ */
+public class NdJsonWriter {
+
+  private final ObjectMapper objectMapper;
+  private final OutputStream outputStream;
+
+  public NdJsonWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+    this.objectMapper = objectMapper;
+    this.outputStream = outputStream;
+  }
+
+  public void write(Object value) {
+    try {
+      outputStream.write(objectMapper.writeValueAsBytes(value));
+      outputStream.write('\n');
+      outputStream.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -4,6 +4,9 @@ public class constants {
 
   public static final String TENANT_ID = "tenantId";
   public static final String PASSWORD = "password";
+  public static final String NEXT_CURSOR = "X-Next-Cursor";
+  public static final String SPICEDB_CALLS = "X-SpiceDB-Calls";
+  public static final String ZED_TOKEN = "X-Zed-Token";
   public static final String ROOT_RESOURCE = "folder";
   public static final String SPICEDB_SCHEMA_FILE_NAME = "files_schema.zed";
 